@@ -0,0 +1,890 @@
+import board.Board;
+import board.Fen;
+import board.Move;
+import board.MoveGenerator;
+import board.PackedMove;
+import board.Polyglot;
+import board.Perft;
+import engine.Evaluator;
+import engine.ParallelSearch;
+import engine.PawnHashTable;
+import engine.PolyglotBook;
+import engine.Search;
+import engine.SearchLimits;
+import engine.SearchResult;
+import engine.TranspositionTable;
+import enums.Color;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.io.Writer;
+import pgn.GameArchiveReader;
+import pgn.GameArchiveWriter;
+import pgn.OpeningTree;
+import pgn.PGNExporter;
+import pgn.PGNGame;
+import pgn.PGNImportPipeline;
+import pgn.PGNParser;
+import pgn.PGNLexer;
+import pgn.PGNReader;
+import pgn.PositionIndex;
+import pgn.PositionIndexBuilder;
+
+/**
+ * Headless command-line entry point for tooling that does not need the interactive CLI.
+ * Usage:
+ *   java ChessTools perft &lt;depth&gt; [fen]    count leaf nodes with divide output
+ *   java ChessTools suite [maxDepth]        run the perft reference positions
+ *   java ChessTools allocperft &lt;depth&gt; [fen]   bytes allocated per perft node, packed vs Move objects
+ *   java ChessTools search depth|time|nodes &lt;n&gt; [hash &lt;mb&gt;] [threads &lt;n&gt;] [fen]   find the best move with the engine
+ *   java ChessTools smp &lt;maxThreads&gt; &lt;depth&gt; [fen]   measure parallel search scaling
+ *   java ChessTools pgnscan &lt;file&gt;      stream a PGN database and count its games
+ *   java ChessTools pgnbench &lt;file&gt; [rounds]   compare PGN tokenizer throughput with the regex passes
+ *   java ChessTools pgnimport &lt;file&gt; [threads &lt;n&gt;] [ordered]   validate every game in parallel
+ *   java ChessTools archive &lt;in.pgn&gt; &lt;out.cga&gt;     convert PGN to a binary game archive
+ *   java ChessTools unarchive &lt;in.cga&gt; &lt;out.pgn&gt;   convert a binary game archive back to PGN
+ *   java ChessTools archiveshow &lt;file.cga&gt; &lt;n&gt; [count]   print games n onwards from an archive
+ *   java ChessTools posindex &lt;in.cga|in.pgn&gt; &lt;out.idx&gt;   build a position search index
+ *   java ChessTools posquery &lt;file.idx&gt; [fen]   list the games and plies where a position occurred
+ *   java ChessTools opentree &lt;file.tree&gt; &lt;in.pgn|in.cga&gt;... [plies &lt;n&gt;]   build or extend an opening tree
+ *   java ChessTools openstats &lt;file.tree&gt; [fen]   move statistics of a position from an opening tree
+ *   java ChessTools book &lt;file.bin&gt; [fen]     list the Polyglot book moves of a position
+ *   java ChessTools bookbench &lt;file.bin&gt; [lookups]   measure Polyglot book lookup latency
+ *   java ChessTools fenbench &lt;file&gt; [rounds]   check FEN round trips and measure parse and export speed
+ *   java ChessTools evalbench [file] [rounds]   check evaluation symmetry and measure evaluations per second
+ */
+public class ChessTools {
+    /** Middlegame position (Kiwipete) used by the benchmarks when no FEN is given. */
+    private static final String BENCH_POSITION = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    /**
+     * Tool entry point. Dispatches on the first argument.
+     * @param args Command name followed by its arguments
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            printUsage();
+            return;
+        }
+        switch (args[0]) {
+            case "perft" -> runPerft(args);
+            case "suite" -> {
+                int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+                boolean ok = Perft.runSuite(maxDepth, System.out);
+                if (!ok) System.exit(1);
+            }
+            case "allocperft" -> runAllocPerft(args);
+            case "search" -> runSearch(args);
+            case "smp" -> runSmpBenchmark(args);
+            case "pgnscan" -> runPgnScan(args);
+            case "pgnbench" -> runPgnBenchmark(args);
+            case "pgnimport" -> runPgnImport(args);
+            case "archive" -> runArchive(args);
+            case "unarchive" -> runUnarchive(args);
+            case "archiveshow" -> runArchiveShow(args);
+            case "posindex" -> runPositionIndex(args);
+            case "posquery" -> runPositionQuery(args);
+            case "opentree" -> runOpeningTree(args);
+            case "openstats" -> runOpeningStats(args);
+            case "book" -> runBook(args);
+            case "bookbench" -> runBookBenchmark(args);
+            case "fenbench" -> runFenBenchmark(args);
+            case "evalbench" -> runEvalBenchmark(args);
+            default -> {
+                printUsage();
+                System.exit(2);
+            }
+        }
+    }
+
+    /**
+     * Runs perft with divide output from the start position or a supplied FEN.
+     * @param args The command arguments: "perft", depth, optional FEN fields
+     */
+    private static void runPerft(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+        int depth = Integer.parseInt(args[1]);
+        String fen = args.length > 2 ? String.join(" ", java.util.Arrays.copyOfRange(args, 2, args.length)) : Fen.START_POSITION;
+        Board board = new Board();
+        Color toMove = Fen.load(board, fen);
+        Perft.divide(board, toMove, Math.max(1, depth), System.out);
+    }
+
+    /**
+     * Walks the perft tree twice, once with packed moves and once through the object API
+     * (MoveGenerator lists of Move and Board.makeMove(Move)), and prints the bytes allocated
+     * per node by each, as reported by the JVM for the current thread.
+     * @param args The command arguments: "allocperft", depth, optional FEN fields
+     */
+    private static void runAllocPerft(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+        int depth = Math.max(1, Integer.parseInt(args[1]));
+        String fen = args.length > 2 ? String.join(" ", java.util.Arrays.copyOfRange(args, 2, args.length)) : Fen.START_POSITION;
+        Board board = new Board();
+        Color toMove = Fen.load(board, fen);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+
+        // One untimed walk of each so class loading and compilation are not counted
+        Perft.perft(board, toMove, Math.min(depth, 3));
+        objectPerft(board, toMove, Math.min(depth, 3));
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long nodes = Perft.perft(board, toMove, depth);
+        long bytes = threads.getCurrentThreadAllocatedBytes() - before;
+        System.out.printf("%-8s %,14d nodes %,16d bytes %10.1f bytes/node%n", "packed", nodes, bytes, (double) bytes / nodes);
+
+        before = threads.getCurrentThreadAllocatedBytes();
+        nodes = objectPerft(board, toMove, depth);
+        bytes = threads.getCurrentThreadAllocatedBytes() - before;
+        System.out.printf("%-8s %,14d nodes %,16d bytes %10.1f bytes/node%n", "objects", nodes, bytes, (double) bytes / nodes);
+    }
+
+    /**
+     * Counts perft leaf nodes using the Move object API throughout.
+     */
+    private static long objectPerft(Board board, Color color, int depth) {
+        java.util.List<Move> moves = MoveGenerator.generateLegalMoves(board, color);
+        if (depth == 1) return moves.size();
+        Color next = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+        long nodes = 0;
+        for (Move move : moves) {
+            board.makeMove(move);
+            nodes += objectPerft(board, next, depth - 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Searches the start position or a supplied FEN and prints the best move and principal variation.
+     * @param args The command arguments: "search", limit kind (depth, time or nodes), limit value,
+     *             optional "hash" and transposition table size in MB, optional "threads" and
+     *             thread count, optional FEN fields
+     */
+    private static void runSearch(String[] args) {
+        if (args.length < 3) {
+            printUsage();
+            System.exit(2);
+        }
+        long value = Long.parseLong(args[2]);
+        SearchLimits limits = switch (args[1]) {
+            case "depth" -> SearchLimits.depth((int) value);
+            case "time" -> SearchLimits.time(value);
+            case "nodes" -> SearchLimits.nodes(value);
+            default -> null;
+        };
+        if (limits == null) {
+            printUsage();
+            System.exit(2);
+        }
+        int next = 3;
+        int hashMb = TranspositionTable.DEFAULT_SIZE_MB;
+        int threads = 1;
+        while (args.length > next + 1 && (args[next].equals("hash") || args[next].equals("threads"))) {
+            if (args[next].equals("hash")) hashMb = Integer.parseInt(args[next + 1]);
+            else threads = Integer.parseInt(args[next + 1]);
+            next += 2;
+        }
+        String fen = args.length > next ? String.join(" ", java.util.Arrays.copyOfRange(args, next, args.length)) : Fen.START_POSITION;
+        Board board = new Board();
+        Fen.load(board, fen);
+        TranspositionTable table = new TranspositionTable(hashMb);
+        Evaluator evaluator = new Evaluator();
+        SearchResult result = threads > 1
+                ? new ParallelSearch(threads, table).search(board, limits)
+                : new Search(evaluator, table).search(board, limits);
+        System.out.println(result);
+        System.out.println("hash " + table.getSizeMb() + " MB, " + table.hashfull() + "/1000 full");
+        if (threads == 1) printPawnTable(evaluator.getPawnTable());
+        System.out.println("bestmove " + (result.getBestMove() == null ? "(none)" : result.getBestMove()));
+    }
+
+    /**
+     * Searches one position to a fixed depth with 1, 2, 4, ... up to maxThreads threads,
+     * each time with a fresh table, and prints nodes/second and time-to-depth relative to one thread.
+     * @param args The command arguments: "smp", maximum thread count, depth, optional FEN fields
+     */
+    private static void runSmpBenchmark(String[] args) {
+        if (args.length < 3) {
+            printUsage();
+            System.exit(2);
+        }
+        int maxThreads = Integer.parseInt(args[1]);
+        int depth = Integer.parseInt(args[2]);
+        String fen = args.length > 3 ? String.join(" ", java.util.Arrays.copyOfRange(args, 3, args.length)) : BENCH_POSITION;
+        Board board = new Board();
+        Fen.load(board, fen);
+
+        // Warm up the JIT so the single-thread baseline is not measured on interpreted code
+        new ParallelSearch(1, new TranspositionTable()).search(board, SearchLimits.depth(Math.max(1, depth - 1)));
+
+        System.out.println("Lazy SMP scaling, depth " + depth + " [" + fen + "]");
+        System.out.printf("%8s %10s %14s %12s %10s %8s  %s%n", "threads", "time ms", "nodes", "nps", "nps x", "ttd x", "bestmove");
+        double baseNps = 0;
+        double baseTime = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            ParallelSearch search = new ParallelSearch(threads, new TranspositionTable());
+            SearchResult result = search.search(board, SearchLimits.depth(depth));
+            double time = Math.max(1, result.getTimeMillis());
+            double nps = result.getNodes() * 1000.0 / time;
+            if (threads == 1) {
+                baseNps = nps;
+                baseTime = time;
+            }
+            System.out.printf("%8d %10d %,14d %,12.0f %10.2f %8.2f  %s%n", threads, result.getTimeMillis(),
+                    result.getNodes(), nps, nps / baseNps, baseTime / time, result.getBestMove());
+            if (threads >= maxThreads) break;
+        }
+    }
+
+    /**
+     * Streams every game of a PGN database and prints game, move and result counts with the read speed.
+     * @param args The command arguments: "pgnscan", file path
+     */
+    private static void runPgnScan(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        long plies = 0;
+        long whiteWins = 0;
+        long blackWins = 0;
+        long draws = 0;
+        long games;
+        long chars;
+        try (PGNReader reader = PGNReader.open(Path.of(args[1]))) {
+            while (reader.hasNext()) {
+                PGNGame game = reader.next();
+                plies += game.getMoves().size();
+                switch (game.getResult()) {
+                    case "1-0" -> whiteWins++;
+                    case "0-1" -> blackWins++;
+                    case "1/2-1/2" -> draws++;
+                    default -> { }
+                }
+            }
+            games = reader.getGamesRead();
+            chars = reader.getCharsRead();
+        } catch (IOException e) {
+            System.out.println("Cannot read " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d games, %,d plies (1-0 %,d, 0-1 %,d, draw %,d)%n", games, plies, whiteWins, blackWins, draws);
+        System.out.printf("%.2f s, %,.0f games/s, %.1f MB/s%n", seconds, games / seconds, chars / seconds / 1e6);
+    }
+
+    /**
+     * Tokenizes a PGN file held in memory with the single-pass lexer and with the regex passes
+     * the parser used before it, and prints the throughput of each in MB/s.
+     * @param args The command arguments: "pgnbench", file path, optional number of timed rounds
+     */
+    private static void runPgnBenchmark(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        String text;
+        try {
+            text = Files.readString(Path.of(args[1]));
+        } catch (IOException e) {
+            System.out.println("Cannot read " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        double mb = text.length() / 1e6;
+        System.out.printf("%.1f MB, best of %d rounds%n", mb, rounds);
+
+        long best = Long.MAX_VALUE;
+        long tokens = 0;
+        for (int i = 0; i <= rounds; i++) {
+            long start = System.nanoTime();
+            tokens = lexerTokenCount(text);
+            // Round 0 warms up the JIT
+            if (i > 0) best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-8s %,12d moves %10.1f MB/s%n", "lexer", tokens, mb / (best / 1e9));
+
+        best = Long.MAX_VALUE;
+        for (int i = 0; i <= rounds; i++) {
+            long start = System.nanoTime();
+            tokens = regexTokenCount(text);
+            if (i > 0) best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-8s %,12d moves %10.1f MB/s%n", "regex", tokens, mb / (best / 1e9));
+    }
+
+    /**
+     * Counts the main-line SAN moves of a text with PGNLexer.
+     */
+    private static long lexerTokenCount(String text) {
+        long moves = 0;
+        PGNLexer lexer = new PGNLexer(text);
+        for (PGNLexer.Token t = lexer.next(); t != PGNLexer.Token.END; t = lexer.next()) {
+            if (t == PGNLexer.Token.SAN && lexer.getDepth() == 0) moves++;
+        }
+        return moves;
+    }
+
+    /**
+     * Counts SAN moves with the whole-text regex passes that PGNParser.parseMoves used before
+     * the lexer, kept here as the benchmark baseline.
+     */
+    private static long regexTokenCount(String text) {
+        String noTags = text.replaceAll("(?s)\\[.*?\\]", " ");
+        noTags = noTags.replaceAll("(?s)\\{.*?\\}", " ");
+        noTags = noTags.replaceAll(";.*?(\\r?\\n|$)", " ");
+        noTags = noTags.replaceAll("(?s)\\(.*?\\)", " ");
+        noTags = noTags.replaceAll("\\d+\\.+", " ");
+        long moves = 0;
+        for (String t : noTags.trim().split("\\s+")) {
+            if (t.isEmpty() || t.matches("1-0|0-1|1/2-1/2|\\*")) continue;
+            moves++;
+        }
+        return moves;
+    }
+
+    /**
+     * Validates every game of a PGN database with the parallel import pipeline,
+     * listing the invalid ones and printing games/second.
+     * @param args The command arguments: "pgnimport", file path, optional "threads" and worker count
+     *             (default: all cores), optional "ordered" to report games in file order
+     */
+    private static void runPgnImport(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean ordered = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("threads") && i + 1 < args.length) threads = Integer.parseInt(args[++i]);
+            else if (args[i].equals("ordered")) ordered = true;
+        }
+        PGNImportPipeline pipeline = new PGNImportPipeline(threads, 256, ordered);
+        PGNImportPipeline.Stats stats;
+        try (PGNReader reader = PGNReader.open(Path.of(args[1]))) {
+            stats = pipeline.run(reader, r -> {
+                if (!r.isValid()) System.out.println("game " + r.getGame().getNumber() + ": " + r.getError());
+            });
+        } catch (IOException e) {
+            System.out.println("Cannot read " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.out.println(threads + " workers: " + stats);
+        if (stats.getInvalid() > 0) System.exit(1);
+    }
+
+    /**
+     * Converts a PGN database into a binary game archive and prints the size reduction.
+     * Games with illegal moves are reported and left out.
+     * @param args The command arguments: "archive", PGN input path, archive output path
+     */
+    private static void runArchive(String[] args) {
+        if (args.length < 3) {
+            printUsage();
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        long skipped = 0;
+        long games;
+        long pgnChars;
+        long archiveBytes;
+        try (PGNReader reader = PGNReader.open(Path.of(args[1]))) {
+            GameArchiveWriter writer = new GameArchiveWriter(Path.of(args[2]));
+            try (writer) {
+                while (reader.hasNext()) {
+                    PGNGame game = reader.next();
+                    try {
+                        writer.add(game);
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("game " + game.getNumber() + " skipped: " + e.getMessage());
+                        skipped++;
+                    }
+                }
+            }
+            games = writer.getGameCount();
+            pgnChars = reader.getCharsRead();
+            archiveBytes = Files.size(Path.of(args[2]));
+        } catch (IOException e) {
+            System.out.println("Cannot convert " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d games archived (%,d skipped) in %.2f s%n", games, skipped, seconds);
+        System.out.printf("%,d bytes -> %,d bytes (%.1fx smaller)%n", pgnChars, archiveBytes,
+                pgnChars / (double) Math.max(1, archiveBytes));
+    }
+
+    /**
+     * Converts a binary game archive back into PGN.
+     * @param args The command arguments: "unarchive", archive input path, PGN output path
+     */
+    private static void runUnarchive(String[] args) {
+        if (args.length < 3) {
+            printUsage();
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        long games;
+        try (GameArchiveReader reader = new GameArchiveReader(Path.of(args[1]));
+             Writer out = Files.newBufferedWriter(Path.of(args[2]))) {
+            games = reader.size();
+            for (long n = 1; n <= games; n++) {
+                PGNGame game = reader.read(n);
+                out.write(PGNExporter.generate(game.getTags(), game.getMoves(), game.getResult()));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot convert " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d games written in %.2f s, %,.0f games/s%n", games, seconds, games / Math.max(1e-9, seconds));
+    }
+
+    /**
+     * Prints a page of games from a binary game archive as PGN, reading only those games.
+     * @param args The command arguments: "archiveshow", archive path, first game number,
+     *             optional number of games (default 1)
+     */
+    private static void runArchiveShow(String[] args) {
+        if (args.length < 3) {
+            printUsage();
+            System.exit(2);
+        }
+        long first = Long.parseLong(args[2]);
+        int count = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        long start = System.nanoTime();
+        try (GameArchiveReader reader = new GameArchiveReader(Path.of(args[1]))) {
+            long last = Math.min(reader.size(), first + count - 1);
+            reader.games(first, last).forEach(game -> {
+                System.out.println(PGNExporter.generate(game.getTags(), game.getMoves(), game.getResult()));
+            });
+            System.out.printf("games %,d-%,d of %,d in %.2f ms%n", first, last, reader.size(),
+                    (System.nanoTime() - start) / 1e6);
+        } catch (IOException | IndexOutOfBoundsException e) {
+            System.out.println("Cannot read " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Builds a position search index from a binary game archive or a PGN database.
+     * Archives are replayed from their stored moves; PGN games are resolved from SAN,
+     * and games with illegal moves are reported and left out.
+     * @param args The command arguments: "posindex", archive or PGN input path, index output path
+     */
+    private static void runPositionIndex(String[] args) {
+        if (args.length < 3) {
+            printUsage();
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        long games = 0;
+        PositionIndexBuilder builder = new PositionIndexBuilder(Path.of(args[2]));
+        try (builder) {
+            if (args[1].endsWith(".cga")) {
+                try (GameArchiveReader reader = new GameArchiveReader(Path.of(args[1]))) {
+                    for (long n = 1; n <= reader.size(); n++) {
+                        builder.add(n, reader.readTags(n), reader.readMoves(n));
+                        games++;
+                    }
+                }
+            } else {
+                try (PGNReader reader = PGNReader.open(Path.of(args[1]))) {
+                    while (reader.hasNext()) {
+                        PGNGame game = reader.next();
+                        try {
+                            builder.add(game);
+                            games++;
+                        } catch (IllegalArgumentException e) {
+                            System.out.println("game " + game.getNumber() + " skipped: " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot index " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%,d games, %,d positions indexed in %.2f s (%d sorted runs merged)%n",
+                games, builder.getEntryCount(), seconds, builder.getRunCount());
+    }
+
+    /**
+     * Looks up a position in a position search index and prints where it occurred.
+     * @param args The command arguments: "posquery", index path, optional FEN (default: start position)
+     */
+    private static void runPositionQuery(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+        String fen = args.length > 2 ? String.join(" ", java.util.Arrays.copyOfRange(args, 2, args.length)) : Fen.START_POSITION;
+        Board board = new Board();
+        Fen.load(board, fen);
+        try (PositionIndex index = new PositionIndex(Path.of(args[1]))) {
+            long start = System.nanoTime();
+            long[] hits = index.lookup(board);
+            double micros = (System.nanoTime() - start) / 1e3;
+            for (int i = 0; i < Math.min(hits.length, 20); i++) {
+                System.out.println("game " + PositionIndex.game(hits[i]) + " ply " + PositionIndex.ply(hits[i]));
+            }
+            if (hits.length > 20) System.out.println("...");
+            System.out.printf("%,d occurrences among %,d positions, lookup %.1f us%n", hits.length, index.size(), micros);
+        } catch (IOException e) {
+            System.out.println("Cannot read " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Adds games to an opening tree, creating the tree file if it does not exist yet.
+     * Games with illegal moves are reported and left out; unfinished games are not counted.
+     * @param args The command arguments: "opentree", tree path, one or more archive or PGN paths,
+     *             optional "plies" and the ply limit of a new tree
+     */
+    private static void runOpeningTree(String[] args) {
+        if (args.length < 3) {
+            printUsage();
+            System.exit(2);
+        }
+        int end = args.length;
+        int plies = OpeningTree.DEFAULT_MAX_PLIES;
+        if (end >= 5 && args[end - 2].equals("plies")) {
+            plies = Integer.parseInt(args[end - 1]);
+            end -= 2;
+        }
+        Path treePath = Path.of(args[1]);
+        long start = System.nanoTime();
+        try {
+            OpeningTree tree = Files.exists(treePath) ? OpeningTree.load(treePath) : new OpeningTree(plies);
+            long before = tree.getGameCount();
+            for (int i = 2; i < end; i++) {
+                if (args[i].endsWith(".cga")) {
+                    try (GameArchiveReader reader = new GameArchiveReader(Path.of(args[i]))) {
+                        for (long n = 1; n <= reader.size(); n++) {
+                            java.util.Map<String, String> tags = reader.readTags(n);
+                            tree.add(tags, reader.readMoves(n), tags.getOrDefault("Result", "*"));
+                        }
+                    }
+                } else {
+                    try (PGNReader reader = PGNReader.open(Path.of(args[i]))) {
+                        while (reader.hasNext()) {
+                            PGNGame game = reader.next();
+                            try {
+                                tree.add(game);
+                            } catch (IllegalArgumentException e) {
+                                System.out.println("game " + game.getNumber() + " skipped: " + e.getMessage());
+                            }
+                        }
+                    }
+                }
+            }
+            tree.save(treePath);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%,d games added (%,d in total, first %d plies), %,d moves in the tree, %.2f s%n",
+                    tree.getGameCount() - before, tree.getGameCount(), tree.getMaxPlies(), tree.getEdgeCount(), seconds);
+        } catch (IOException e) {
+            System.out.println("Cannot build " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints the move statistics of a position from an opening tree.
+     * @param args The command arguments: "openstats", tree path, optional FEN (default: start position)
+     */
+    private static void runOpeningStats(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+        String fen = args.length > 2 ? String.join(" ", java.util.Arrays.copyOfRange(args, 2, args.length)) : Fen.START_POSITION;
+        Board board = new Board();
+        Fen.load(board, fen);
+        OpeningTree tree;
+        try {
+            tree = OpeningTree.load(Path.of(args[1]));
+        } catch (IOException e) {
+            System.out.println("Cannot read " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        long start = System.nanoTime();
+        java.util.List<OpeningTree.MoveStats> stats = tree.getStats(board);
+        double micros = (System.nanoTime() - start) / 1e3;
+        PGNParser parser = new PGNParser();
+        for (OpeningTree.MoveStats s : stats) {
+            String san = parser.moveToSAN(board, PackedMove.toMove(s.getMove()), board.getSideToMove());
+            System.out.printf("%-8s %,9d games   %5.1f%% white  %5.1f%% draw  %5.1f%% black%n", san, s.getGames(),
+                    100.0 * s.getWhiteWins() / s.getGames(), 100.0 * s.getDraws() / s.getGames(),
+                    100.0 * s.getBlackWins() / s.getGames());
+        }
+        System.out.printf("%d moves from %,d games, lookup %.1f us%n", stats.size(), tree.getGameCount(), micros);
+    }
+
+    /**
+     * Prints the moves a Polyglot book gives for a position, with their weights.
+     * @param args The command arguments: "book", book path, optional FEN (default: start position)
+     */
+    private static void runBook(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+        String fen = args.length > 2 ? String.join(" ", java.util.Arrays.copyOfRange(args, 2, args.length)) : Fen.START_POSITION;
+        Board board = new Board();
+        Fen.load(board, fen);
+        try (PolyglotBook book = new PolyglotBook(Path.of(args[1]))) {
+            java.util.List<PolyglotBook.BookMove> moves = book.getMoves(board);
+            long total = 0;
+            for (PolyglotBook.BookMove move : moves) total += move.getWeight();
+            PGNParser parser = new PGNParser();
+            for (PolyglotBook.BookMove move : moves) {
+                String san = parser.moveToSAN(board, PackedMove.toMove(move.getMove()), board.getSideToMove());
+                System.out.printf("%-8s %-6s weight %5d  %5.1f%%%n", san, PackedMove.toString(move.getMove()),
+                        move.getWeight(), 100.0 * move.getWeight() / Math.max(1, total));
+            }
+            System.out.printf("key %016x: %d book moves (%,d entries in book)%n", Polyglot.key(board), moves.size(), book.size());
+        } catch (IOException e) {
+            System.out.println("Cannot read " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Measures book lookup latency. Positions are collected by playing random book moves
+     * from the start position until the book runs out, so most lookups hit; each position
+     * is then looked up repeatedly and the average time per lookup is printed.
+     * @param args The command arguments: "bookbench", book path, optional lookup count (default 1,000,000)
+     */
+    private static void runBookBenchmark(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+        int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        try (PolyglotBook book = new PolyglotBook(Path.of(args[1]))) {
+            java.util.Random random = new java.util.Random(1);
+            java.util.List<Board> positions = new java.util.ArrayList<>();
+            for (int line = 0; line < 64; line++) {
+                Board board = new Board();
+                Fen.load(board, Fen.START_POSITION);
+                while (positions.size() < 1024) {
+                    positions.add(board.clone());
+                    int move = book.pickMove(board, random);
+                    if (move == PackedMove.NONE) break;
+                    board.makeMove(move);
+                }
+            }
+            long hits = 0;
+            long sink = 0;
+            // One untimed pass so the mapping is paged in and the code is compiled
+            for (Board board : positions) sink += book.getMoves(board).size();
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                int found = book.getMoves(positions.get(i % positions.size())).size();
+                if (found > 0) hits++;
+                sink += found;
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%,d lookups over %d positions (%.0f%% in book): %.2f us per lookup, %,.0f lookups/s (%d)%n",
+                    lookups, positions.size(), 100.0 * hits / lookups, elapsed / 1e3 / lookups,
+                    lookups / (elapsed / 1e9), sink % 10);
+        } catch (IOException e) {
+            System.out.println("Cannot read " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads a file of FEN or EPD lines, checks that every position survives an export and
+     * re-import unchanged, then prints how many positions per second are parsed into a single
+     * reused board and exported into a single reused builder, best of the given rounds.
+     * Blank lines and lines starting with '#' are skipped.
+     * @param args The command arguments: "fenbench", file path, optional number of timed rounds (default 5)
+     */
+    private static void runFenBenchmark(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            System.exit(2);
+        }
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        java.util.List<String> lines = new java.util.ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(Path.of(args[1]))) {
+                if (!line.isBlank() && !line.startsWith("#")) lines.add(line);
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot read " + args[1] + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        Board board = new Board();
+        Board copy = new Board();
+        StringBuilder fen = new StringBuilder(128);
+        java.util.List<Board> positions = new java.util.ArrayList<>(lines.size());
+        int mismatches = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                Fen.load(board, lines.get(i));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Line " + (i + 1) + ": " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            fen.setLength(0);
+            Fen.append(board, fen);
+            Fen.load(copy, fen);
+            if (copy.getKey() != board.getKey() || !Fen.toFen(copy).contentEquals(fen)) {
+                if (mismatches++ < 10) System.out.println("Round trip differs: " + lines.get(i) + " -> " + fen);
+            }
+            positions.add(board.clone());
+        }
+        System.out.printf("%,d positions, %d round-trip mismatches, best of %d rounds%n",
+                lines.size(), mismatches, rounds);
+
+        long best = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round <= rounds; round++) {
+            long start = System.nanoTime();
+            for (String line : lines) sink += Fen.load(board, line).ordinal();
+            // Round 0 warms up the JIT
+            if (round > 0) best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-8s %,12.0f positions/s%n", "parse", lines.size() / (best / 1e9));
+
+        best = Long.MAX_VALUE;
+        for (int round = 0; round <= rounds; round++) {
+            long start = System.nanoTime();
+            for (Board position : positions) {
+                fen.setLength(0);
+                Fen.append(position, fen);
+                sink += fen.length();
+            }
+            if (round > 0) best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-8s %,12.0f positions/s (%d)%n", "export", positions.size() / (best / 1e9), sink % 10);
+        if (mismatches > 0) System.exit(1);
+    }
+
+    /**
+     * Evaluates every position of a FEN file (one per line) and its color-flipped mirror,
+     * reporting the positions where the two scores differ, then measures evaluations per second
+     * over the positions, best of the given rounds. Without a file, the positions are
+     * {@link Evaluator#SYMMETRY_POSITIONS}.
+     * Blank lines and lines starting with '#' are skipped.
+     * @param args The command arguments: "evalbench", optional file path, optional number of timed rounds (default 5)
+     */
+    private static void runEvalBenchmark(String[] args) {
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        java.util.List<String> lines = new java.util.ArrayList<>();
+        if (args.length < 2) {
+            lines.addAll(java.util.List.of(Evaluator.SYMMETRY_POSITIONS));
+        } else {
+            try {
+                for (String line : Files.readAllLines(Path.of(args[1]))) {
+                    if (!line.isBlank() && !line.startsWith("#")) lines.add(line);
+                }
+            } catch (IOException e) {
+                System.out.println("Cannot read " + args[1] + ": " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+        }
+
+        Evaluator evaluator = new Evaluator();
+        Board board = new Board();
+        Board mirrored = new Board();
+        java.util.List<Board> positions = new java.util.ArrayList<>(lines.size());
+        int mismatches = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                Fen.load(board, lines.get(i));
+                Fen.load(mirrored, Fen.mirror(lines.get(i)));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Line " + (i + 1) + ": " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+            // Both scores are from the side to move, which is the same side seen from the other end
+            int score = evaluator.evaluate(board);
+            int mirrorScore = evaluator.evaluate(mirrored);
+            if (score != mirrorScore) {
+                if (mismatches++ < 10) {
+                    System.out.println("Asymmetric: " + lines.get(i) + " scores " + score + ", mirrored " + mirrorScore);
+                }
+            }
+            positions.add(board.clone());
+        }
+        System.out.printf("%,d positions, %d symmetry mismatches, best of %d rounds%n",
+                lines.size(), mismatches, rounds);
+
+        long best = Long.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round <= rounds; round++) {
+            long start = System.nanoTime();
+            for (Board position : positions) sink += evaluator.evaluate(position);
+            // Round 0 warms up the JIT
+            if (round > 0) best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-8s %,12.0f evaluations/s (%d)%n", "evaluate", positions.size() / (best / 1e9), sink % 10);
+        printPawnTable(evaluator.getPawnTable());
+        if (mismatches > 0) System.exit(1);
+    }
+
+    /**
+     * Prints the probe and hit counts of a pawn hash table.
+     * @param pawnTable The table
+     */
+    private static void printPawnTable(PawnHashTable pawnTable) {
+        System.out.printf("pawn hash %,d entries, %,d probes, %.1f%% hits%n",
+                pawnTable.getCapacity(), pawnTable.getProbes(), pawnTable.getHitRate() * 100);
+    }
+
+    /**
+     * Prints the list of available commands.
+     */
+    private static void printUsage() {
+        System.out.println("Usage: java ChessTools <command> [args]");
+        System.out.println("  perft <depth> [fen]   count leaf nodes with per-move divide output");
+        System.out.println("  suite [maxDepth]      run the perft reference positions (default depth 4)");
+        System.out.println("  allocperft <depth> [fen]   bytes allocated per perft node, packed moves vs Move objects");
+        System.out.println("  search depth|time|nodes <n> [hash <mb>] [threads <n>] [fen]");
+        System.out.println("                        engine best move within a depth, millisecond or node budget");
+        System.out.println("  smp <maxThreads> <depth> [fen]   parallel search scaling: nodes/s and time to depth");
+        System.out.println("  pgnscan <file>        stream a PGN database and count games, plies and results");
+        System.out.println("  pgnbench <file> [rounds]   PGN tokenizer MB/s, lexer vs regex passes");
+        System.out.println("  pgnimport <file> [threads <n>] [ordered]   validate all games in parallel, games/s");
+        System.out.println("  archive <in.pgn> <out.cga>     convert PGN to a compact binary game archive");
+        System.out.println("  unarchive <in.cga> <out.pgn>   convert a binary game archive back to PGN");
+        System.out.println("  archiveshow <file.cga> <n> [count]   print games n.. from an archive (random access)");
+        System.out.println("  posindex <in.cga|in.pgn> <out.idx>   build a position search index over the games");
+        System.out.println("  posquery <file.idx> [fen]   games and plies where a position occurred");
+        System.out.println("  opentree <file.tree> <in.pgn|in.cga>... [plies <n>]   build or extend an opening tree");
+        System.out.println("  openstats <file.tree> [fen]   move frequencies and results from an opening tree");
+        System.out.println("  book <file.bin> [fen]   Polyglot opening book moves and weights of a position");
+        System.out.println("  bookbench <file.bin> [lookups]   Polyglot book lookup latency");
+        System.out.println("  fenbench <file> [rounds]   FEN round-trip check, positions/s parsed and exported");
+        System.out.println("  evalbench [file] [rounds]   evaluation symmetry check on mirrored positions, evaluations/s");
+        System.out.println("                        (the built-in symmetry positions when no file is given)");
+    }
+}
@@ -0,0 +1,258 @@
+package board;
+
+import enums.Color;
+
+/**
+ * Bitboard attack helpers shared by the board and move generation.
+ * Squares are indexed as rank * 8 + file, so a1 = 0, h1 = 7 and h8 = 63.
+ * Every method returns the set of squares a piece on the given square attacks.
+ *
+ * All answers come from tables filled once when the class loads. Rook and bishop attacks use
+ * magic bitboards: the occupied squares that can block the piece are multiplied by a per-square
+ * magic number, and the top bits of the product index that square's slice of the attack table,
+ * so a lookup is a mask, a multiply, a shift and a load whatever the ray lengths.
+ */
+public final class Attacks {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final long NOT_A = ~FILE_A;
+    private static final long NOT_AB = ~(FILE_A | (FILE_A << 1));
+    private static final long NOT_H = ~FILE_H;
+    private static final long NOT_GH = ~(FILE_H | (FILE_H >>> 1));
+
+    /** Attack sets of the leaping pieces, indexed by square (pawns also by color ordinal). */
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    /** Magic multipliers, one per square; found by random search and checked collision-free for every blocker set. */
+    private static final long[] ROOK_MAGICS = {
+            0x2180048440003060L, 0x4240012000411000L, 0x0200082013820041L, 0x2080050800100080L,
+            0x0080040008008003L, 0x0200070200500834L, 0xE2800A0000800500L, 0x710000920044E100L,
+            0xC490800040008020L, 0x8000802000804008L, 0x0000808020001000L, 0x0001001000082100L,
+            0x0004808004000800L, 0x0003000884010022L, 0x1100808002000100L, 0x0022000102304084L,
+            0x0380228000944000L, 0x5000404010002000L, 0x0081050020004010L, 0x0040808008001000L,
+            0x0C94808008000400L, 0x9004004002010040L, 0x0001040002010810L, 0x003002001400A149L,
+            0x8080400080096280L, 0x00200040C000B000L, 0x1040200480100080L, 0x0041080480100181L,
+            0x0000500500280100L, 0x0020020080800400L, 0x3082008200010408L, 0x0400018A00005403L,
+            0x0400400082800030L, 0x8000201001400040L, 0x4010801000802000L, 0x0E02042012000840L,
+            0x1008040080800800L, 0x0490800200800400L, 0x8019020001010004L, 0x0804108062000401L,
+            0x0000804000208008L, 0x0000200050014000L, 0x3010002000808010L, 0x001000110B010020L,
+            0x004D000408010010L, 0x2102000508020010L, 0x0000129021040008L, 0x0050A05084020001L,
+            0x0000885200210200L, 0x0110024000200440L, 0x100100104E200100L, 0x0010008010080080L,
+            0x0002080080040280L, 0x0000020080040080L, 0x0210021008010400L, 0x8010010044008200L,
+            0x0000490010208001L, 0x0440004088201501L, 0x000E010840228112L, 0x0000080421001001L,
+            0x0202000820041002L, 0x0412008801100402L, 0x20801800903A2D04L, 0x00C0004400802102L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x0820010418008021L, 0x0260416400808008L, 0x00C1870A00800002L, 0x0204242080042000L,
+            0x0001104100008000L, 0x0010882009080002L, 0x1024208410088011L, 0x50A2808810900441L,
+            0x0008880210024200L, 0x4000028801430602L, 0x2000094404108110L, 0x4428243046000090L,
+            0x0408040422020802L, 0x0098020110082200L, 0x0200408801501000L, 0x2080204042101000L,
+            0x082002C003840100L, 0x3C12009408881100L, 0x0120400400488201L, 0x0008428404000809L,
+            0x000C000080A06001L, 0x4001000201008200L, 0x4109000A08020200L, 0x0000421104208400L,
+            0x00900400CBA00400L, 0x0004020050320840L, 0x00803008480445C1L, 0x1210040000440008L,
+            0x0081010000104001L, 0x002800410A842043L, 0x4082041000808800L, 0x00010B1142004110L,
+            0x001008228008420AL, 0x0048421020028400L, 0xC800802400608800L, 0x0080110800240040L,
+            0x0024080200002008L, 0x8020008080030800L, 0x84A4009400060144L, 0x000C008189002400L,
+            0x0800842020000820L, 0x883080C808442022L, 0x2801001802000400L, 0xE000004200808800L,
+            0x010002020C004A00L, 0x4422409102002100L, 0x00200400920180A8L, 0x0011080208410088L,
+            0x0200680808080810L, 0x0A42020201040400L, 0x0C10002402081820L, 0x01A4810E84240120L,
+            0x080400081B041012L, 0x0200401408409004L, 0x48202001A2208040L, 0x1920014408809200L,
+            0x0080A40400845010L, 0x6000008088011004L, 0x0280300100889080L, 0x02210B0021841102L,
+            0x4000800008030400L, 0x8100100811300080L, 0x0210404908490040L, 0x0104305000410044L
+    };
+
+    /** Squares whose occupancy can block a slider on each square (board edges excluded). */
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    /** 64 minus the number of mask bits: the shift that turns a product into a table index. */
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    /** Start of each square's slice in the shared attack tables. */
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+    private static final long[] BISHOP_TABLE;
+
+    /** Squares strictly between and the full line through two aligned squares, indexed by a * 64 + b. */
+    private static final long[] BETWEEN = new long[64 * 64];
+    private static final long[] LINE = new long[64 * 64];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            long b = 1L << sq;
+            KNIGHT[sq] = ((b << 17) & NOT_A) | ((b << 15) & NOT_H)
+                    | ((b << 10) & NOT_AB) | ((b << 6) & NOT_GH)
+                    | ((b >>> 17) & NOT_H) | ((b >>> 15) & NOT_A)
+                    | ((b >>> 10) & NOT_GH) | ((b >>> 6) & NOT_AB);
+            long row = b | ((b << 1) & NOT_A) | ((b >>> 1) & NOT_H);
+            KING[sq] = (row | (row << 8) | (row >>> 8)) & ~b;
+            PAWN[Color.WHITE.ordinal()][sq] = ((b << 7) & NOT_H) | ((b << 9) & NOT_A);
+            PAWN[Color.BLACK.ordinal()][sq] = ((b >>> 9) & NOT_H) | ((b >>> 7) & NOT_A);
+        }
+
+        int rookSize = 0;
+        int bishopSize = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            ROOK_MASKS[sq] = ((slide(sq, 0L, 1, 0) | slide(sq, 0L, -1, 0)) & ~(FILE_A | FILE_H))
+                    | ((slide(sq, 0L, 0, 1) | slide(sq, 0L, 0, -1)) & ~(RANK_1 | RANK_8));
+            BISHOP_MASKS[sq] = slowBishop(sq, 0L) & ~(FILE_A | FILE_H | RANK_1 | RANK_8);
+            ROOK_SHIFTS[sq] = 64 - Long.bitCount(ROOK_MASKS[sq]);
+            BISHOP_SHIFTS[sq] = 64 - Long.bitCount(BISHOP_MASKS[sq]);
+            ROOK_OFFSETS[sq] = rookSize;
+            BISHOP_OFFSETS[sq] = bishopSize;
+            rookSize += 1 << Long.bitCount(ROOK_MASKS[sq]);
+            bishopSize += 1 << Long.bitCount(BISHOP_MASKS[sq]);
+        }
+        ROOK_TABLE = new long[rookSize];
+        BISHOP_TABLE = new long[bishopSize];
+        for (int sq = 0; sq < 64; sq++) {
+            // Visit every subset of the mask (Carry-Rippler enumeration)
+            long blockers = 0L;
+            do {
+                ROOK_TABLE[ROOK_OFFSETS[sq] + (int) ((blockers * ROOK_MAGICS[sq]) >>> ROOK_SHIFTS[sq])] = slowRook(sq, blockers);
+                blockers = (blockers - ROOK_MASKS[sq]) & ROOK_MASKS[sq];
+            } while (blockers != 0);
+            do {
+                BISHOP_TABLE[BISHOP_OFFSETS[sq] + (int) ((blockers * BISHOP_MAGICS[sq]) >>> BISHOP_SHIFTS[sq])] = slowBishop(sq, blockers);
+                blockers = (blockers - BISHOP_MASKS[sq]) & BISHOP_MASKS[sq];
+            } while (blockers != 0);
+        }
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                int df = (b & 7) - (a & 7);
+                int dr = (b >>> 3) - (a >>> 3);
+                if (a == b || (df != 0 && dr != 0 && Math.abs(df) != Math.abs(dr))) continue;
+                int stepF = Integer.compare(df, 0);
+                int stepR = Integer.compare(dr, 0);
+                LINE[a * 64 + b] = slide(a, 0L, stepF, stepR) | slide(a, 0L, -stepF, -stepR) | (1L << a);
+                BETWEEN[a * 64 + b] = slide(a, 1L << b, stepF, stepR) & ~(1L << b);
+            }
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private Attacks() {}
+
+    /**
+     * Gets the squares attacked by a knight.
+     * @param square The knight's square index
+     * @return Bitboard of attacked squares
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * Gets the squares attacked by a king (castling is not an attack).
+     * @param square The king's square index
+     * @return Bitboard of attacked squares
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * Gets the squares a pawn attacks diagonally.
+     * By symmetry, pawn(color, s) is also the set of squares from which a pawn of the
+     * other color attacks s.
+     * @param color The pawn's color
+     * @param square The pawn's square index
+     * @return Bitboard of attacked squares
+     */
+    public static long pawn(Color color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    /**
+     * Gets the squares attacked by a rook, stopping at the first blocker on each ray.
+     * @param square The rook's square index
+     * @param occupied Bitboard of all occupied squares
+     * @return Bitboard of attacked squares (blockers included)
+     */
+    public static long rook(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSETS[square]
+                + (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * Gets the squares attacked by a bishop, stopping at the first blocker on each ray.
+     * @param square The bishop's square index
+     * @param occupied Bitboard of all occupied squares
+     * @return Bitboard of attacked squares (blockers included)
+     */
+    public static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square]
+                + (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    /**
+     * Gets the squares attacked by a queen.
+     * @param square The queen's square index
+     * @param occupied Bitboard of all occupied squares
+     * @return Bitboard of attacked squares (blockers included)
+     */
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * Gets the squares strictly between two squares on a shared line.
+     * @param from The first square index
+     * @param to The second square index
+     * @return Bitboard of squares in between, or 0 if the squares are not aligned
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from * 64 + to];
+    }
+
+    /**
+     * Gets the full line (edge to edge) through two aligned squares.
+     * @param a The first square index
+     * @param b The second square index
+     * @return Bitboard of the whole rank, file or diagonal through both squares, or 0 if they are not aligned
+     */
+    public static long line(int a, int b) {
+        return LINE[a * 64 + b];
+    }
+
+    /**
+     * Computes rook attacks by walking the rays; used to fill the table.
+     */
+    private static long slowRook(int square, long occupied) {
+        return slide(square, occupied, 1, 0) | slide(square, occupied, -1, 0)
+                | slide(square, occupied, 0, 1) | slide(square, occupied, 0, -1);
+    }
+
+    /**
+     * Computes bishop attacks by walking the rays; used to fill the tables.
+     */
+    private static long slowBishop(int square, long occupied) {
+        return slide(square, occupied, 1, 1) | slide(square, occupied, 1, -1)
+                | slide(square, occupied, -1, 1) | slide(square, occupied, -1, -1);
+    }
+
+    /**
+     * Walks one ray from a square until the edge of the board or the first occupied square.
+     */
+    private static long slide(int square, long occupied, int df, int dr) {
+        long attacks = 0L;
+        int f = (square & 7) + df;
+        int r = (square >>> 3) + dr;
+        while (f >= 0 && f < 8 && r >= 0 && r < 8) {
+            long bit = 1L << (r * 8 + f);
+            attacks |= bit;
+            if ((occupied & bit) != 0) break;
+            f += df;
+            r += dr;
+        }
+        return attacks;
+    }
+}
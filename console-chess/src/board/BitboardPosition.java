@@ -0,0 +1,158 @@
+package board;
+
+import enums.Color;
+import enums.PieceType;
+import java.util.Arrays;
+
+/**
+ * Bitboard representation of the pieces on a board.
+ * Keeps one 64-bit set for every color and piece type (twelve in total)
+ * plus an occupancy set per color, so attack and occupancy queries
+ * become a handful of bitwise operations instead of grid walks.
+ * Square indices are rank * 8 + file (a1 = 0, h8 = 63).
+ */
+public class BitboardPosition {
+    private final long[] pieces = new long[12];
+    private final long[] occupancy = new long[2];
+
+    /**
+     * Gets the slot of a color and piece type in the piece set array.
+     * @param color The piece color
+     * @param type The piece type
+     * @return Index in the range 0-11
+     */
+    public static int pieceIndex(Color color, PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * Converts a file and rank into a square index.
+     * @param file The file (0-7 for a-h)
+     * @param rank The rank (0-7 for 1-8)
+     * @return Square index in the range 0-63
+     */
+    public static int squareIndex(int file, int rank) {
+        return rank * 8 + file;
+    }
+
+    /**
+     * Adds a piece to the bitboards.
+     * @param square The square index
+     * @param color The piece color
+     * @param type The piece type
+     */
+    public void put(int square, Color color, PieceType type) {
+        long bit = 1L << square;
+        pieces[pieceIndex(color, type)] |= bit;
+        occupancy[color.ordinal()] |= bit;
+    }
+
+    /**
+     * Removes a piece from the bitboards.
+     * @param square The square index
+     * @param color The piece color
+     * @param type The piece type
+     */
+    public void remove(int square, Color color, PieceType type) {
+        long bit = ~(1L << square);
+        pieces[pieceIndex(color, type)] &= bit;
+        occupancy[color.ordinal()] &= bit;
+    }
+
+    /**
+     * Removes every piece.
+     */
+    public void clear() {
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(occupancy, 0L);
+    }
+
+    /**
+     * Overwrites this position with the contents of another one.
+     * @param other The position to copy
+     */
+    public void copyFrom(BitboardPosition other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+    }
+
+    /**
+     * Gets the set of squares holding pieces of a color and type.
+     * @param color The piece color
+     * @param type The piece type
+     * @return Bitboard of matching pieces
+     */
+    public long getPieces(Color color, PieceType type) {
+        return pieces[pieceIndex(color, type)];
+    }
+
+    /**
+     * Gets the set of squares occupied by one side.
+     * @param color The side
+     * @return Bitboard of that side's pieces
+     */
+    public long getOccupancy(Color color) {
+        return occupancy[color.ordinal()];
+    }
+
+    /**
+     * Gets the set of all occupied squares.
+     * @return Bitboard of every piece on the board
+     */
+    public long getOccupancy() {
+        return occupancy[0] | occupancy[1];
+    }
+
+    /**
+     * Checks if a square holds any piece.
+     * @param square The square index
+     * @return true if the square is occupied
+     */
+    public boolean isOccupied(int square) {
+        return ((occupancy[0] | occupancy[1]) & (1L << square)) != 0;
+    }
+
+    /**
+     * Finds the king of a given color.
+     * @param color The king's color
+     * @return The king's square index, or -1 if there is no such king
+     */
+    public int getKingSquare(Color color) {
+        long kings = pieces[pieceIndex(color, PieceType.KING)];
+        return kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+    }
+
+    /**
+     * Gets every piece of a color that attacks a square.
+     * @param square The target square index
+     * @param byColor The attacking color
+     * @param occupied The occupancy used to block sliding pieces
+     * @return Bitboard of attacking pieces
+     */
+    public long attackersOf(int square, Color byColor, long occupied) {
+        Color other = (byColor == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        long queens = getPieces(byColor, PieceType.QUEEN);
+        return (Attacks.pawn(other, square) & getPieces(byColor, PieceType.PAWN))
+                | (Attacks.knight(square) & getPieces(byColor, PieceType.KNIGHT))
+                | (Attacks.king(square) & getPieces(byColor, PieceType.KING))
+                | (Attacks.bishop(square, occupied) & (getPieces(byColor, PieceType.BISHOP) | queens))
+                | (Attacks.rook(square, occupied) & (getPieces(byColor, PieceType.ROOK) | queens));
+    }
+
+    /**
+     * Checks if a square is attacked by any piece of a color.
+     * @param square The target square index
+     * @param byColor The attacking color
+     * @return true if at least one piece of byColor attacks the square
+     */
+    public boolean isSquareAttacked(int square, Color byColor) {
+        Color other = (byColor == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        if ((Attacks.pawn(other, square) & getPieces(byColor, PieceType.PAWN)) != 0) return true;
+        if ((Attacks.knight(square) & getPieces(byColor, PieceType.KNIGHT)) != 0) return true;
+        if ((Attacks.king(square) & getPieces(byColor, PieceType.KING)) != 0) return true;
+        long occupied = getOccupancy();
+        long queens = getPieces(byColor, PieceType.QUEEN);
+        if ((Attacks.bishop(square, occupied) & (getPieces(byColor, PieceType.BISHOP) | queens)) != 0) return true;
+        return (Attacks.rook(square, occupied) & (getPieces(byColor, PieceType.ROOK) | queens)) != 0;
+    }
+}
@@ -2,14 +2,59 @@ package board;
 
 import enums.Color;
 import enums.PieceType;
+import java.util.Arrays;
 import pieces.Piece;
 
 /**
  * Represents the chess board and manages piece positions and moves.
- * The board is an 8x8 grid with files (columns) a-h and ranks (rows) 1-8.
+ * The board is an 8x8 grid with files (columns) a-h and ranks (rows) 1-8,
+ * stored as 64 cells indexed rank * 8 + file.
+ * A bitboard copy of the placement is kept in sync with the grid and backs
+ * attack, path and king queries.
+ * The board also tracks the side to move, castling rights and en passant square,
+ * and a Zobrist key of all of them that is updated incrementally as moves are made.
  */
 public class Board {
-    private Piece[][] squares = new Piece[8][8];
+    public static final int CASTLE_WHITE_KINGSIDE = 1;
+    public static final int CASTLE_WHITE_QUEENSIDE = 2;
+    public static final int CASTLE_BLACK_KINGSIDE = 4;
+    public static final int CASTLE_BLACK_QUEENSIDE = 8;
+    public static final int CASTLE_ALL = 15;
+
+    /** Castling rights kept when a piece leaves or arrives on each square. */
+    private static final int[] CASTLE_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLE_MASK, CASTLE_ALL);
+        CASTLE_MASK[0] &= ~CASTLE_WHITE_QUEENSIDE;
+        CASTLE_MASK[4] &= ~(CASTLE_WHITE_KINGSIDE | CASTLE_WHITE_QUEENSIDE);
+        CASTLE_MASK[7] &= ~CASTLE_WHITE_KINGSIDE;
+        CASTLE_MASK[56] &= ~CASTLE_BLACK_QUEENSIDE;
+        CASTLE_MASK[60] &= ~(CASTLE_BLACK_KINGSIDE | CASTLE_BLACK_QUEENSIDE);
+        CASTLE_MASK[63] &= ~CASTLE_BLACK_KINGSIDE;
+    }
+
+    private Piece[] squares = new Piece[64];
+    private final BitboardPosition bitboards = new BitboardPosition();
+    private Color sideToMove = Color.WHITE;
+    private int castlingRights = 0;
+    private int enPassantSquare = -1;
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
+    private long key = 0L;
+    /** Zobrist key of the pawns alone, kept up to date like the key. */
+    private long pawnKey = 0L;
+    /** Sums of {@link PieceSquareTables} over the pieces on the board, kept up to date like the key. */
+    private int middlegameScore = 0;
+    private int endgameScore = 0;
+    private int phase = 0;
+    /**
+     * Pieces taken off by {@link #clear()} or by taking back a promotion, one stack per color and type,
+     * reused by {@link #placePiece} when a position is set up and by promotions.
+     */
+    private final Piece[][] spares = new Piece[12][];
+    /** Number of spare pieces of each color and type, by BitboardPosition.pieceIndex. */
+    private final int[] spareCounts = new int[12];
 
     /**
      * Gets the piece at the specified square.
@@ -17,7 +62,16 @@ public class Board {
      * @return The piece at that square, or null if empty
      */
     public Piece getPieceAt(Square square) {
-        return squares[square.getRank()][square.getFile()];
+        return squares[BitboardPosition.squareIndex(square.getFile(), square.getRank())];
+    }
+
+    /**
+     * Gets the piece on a square given by index.
+     * @param index The square index (rank * 8 + file)
+     * @return The piece at that square, or null if empty
+     */
+    public Piece getPieceAt(int index) {
+        return squares[index];
     }
 
     /**
@@ -26,7 +80,218 @@ public class Board {
      * @param piece The piece to place (can be null to clear the square)
      */
     public void setPieceAt(Square square, Piece piece) {
-        squares[square.getRank()][square.getFile()] = piece;
+        put(BitboardPosition.squareIndex(square.getFile(), square.getRank()), piece);
+    }
+
+    /**
+     * Places a piece on a square index, keeping the grid, bitboards, keys and piece-square sums in sync.
+     * @param index The square index
+     * @param piece The piece to place (can be null to clear the square)
+     */
+    private void put(int index, Piece piece) {
+        Piece old = squares[index];
+        if (old != null) {
+            bitboards.remove(index, old.getColor(), old.getType());
+            key ^= Zobrist.piece(old.getColor(), old.getType(), index);
+            middlegameScore -= PieceSquareTables.middlegame(old.getColor(), old.getType(), index);
+            endgameScore -= PieceSquareTables.endgame(old.getColor(), old.getType(), index);
+            phase -= PieceSquareTables.phase(old.getType());
+            if (old.getType() == PieceType.PAWN) pawnKey ^= Zobrist.piece(old.getColor(), PieceType.PAWN, index);
+        }
+        if (piece != null) {
+            bitboards.put(index, piece.getColor(), piece.getType());
+            key ^= Zobrist.piece(piece.getColor(), piece.getType(), index);
+            middlegameScore += PieceSquareTables.middlegame(piece.getColor(), piece.getType(), index);
+            endgameScore += PieceSquareTables.endgame(piece.getColor(), piece.getType(), index);
+            phase += PieceSquareTables.phase(piece.getType());
+            if (piece.getType() == PieceType.PAWN) pawnKey ^= Zobrist.piece(piece.getColor(), PieceType.PAWN, index);
+        }
+        squares[index] = piece;
+    }
+
+    /**
+     * Gets the middlegame material and piece-square score, maintained incrementally.
+     * @return The score in centipawns from White's point of view
+     */
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    /**
+     * Gets the endgame material and piece-square score, maintained incrementally.
+     * @return The score in centipawns from White's point of view
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * Gets the game phase: the sum of {@link PieceSquareTables#phase} over the pieces on the board.
+     * @return 24 with all pieces on the board, down to 0 with only kings and pawns (more after promotions)
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Gets the Zobrist key of the position: pieces, side to move, castling rights
+     * and en passant file. The key is maintained incrementally, so this is a field read.
+     * @return The 64-bit position key
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the Zobrist key of the pawns alone: the XOR of the piece keys of every pawn.
+     * Positions with the same pawns on the same squares share it whatever the other pieces,
+     * so it identifies the pawn structure for caching pawn evaluation. Maintained incrementally.
+     * @return The 64-bit pawn key, 0 when there are no pawns
+     */
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * Computes the Zobrist key from scratch (used to verify the incremental key).
+     * @return The 64-bit position key
+     */
+    public long computeKey() {
+        long k = 0L;
+        for (int i = 0; i < 64; i++) {
+            Piece p = squares[i];
+            if (p != null) k ^= Zobrist.piece(p.getColor(), p.getType(), i);
+        }
+        return k ^ stateKey();
+    }
+
+    /**
+     * Gets the part of the key that does not depend on piece placement.
+     * @return The XOR of the side-to-move, castling and en passant keys
+     */
+    private long stateKey() {
+        long k = Zobrist.castling(castlingRights);
+        if (sideToMove == Color.BLACK) k ^= Zobrist.blackToMove();
+        if (enPassantSquare >= 0) k ^= Zobrist.enPassant(enPassantSquare & 7);
+        return k;
+    }
+
+    /**
+     * Gets the side to move.
+     * @return The color whose turn it is
+     */
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Sets the side to move (used when setting up positions).
+     * @param color The color whose turn it is
+     */
+    public void setSideToMove(Color color) {
+        key ^= stateKey();
+        sideToMove = color;
+        key ^= stateKey();
+    }
+
+    /**
+     * Gets the remaining castling rights.
+     * @return Bit mask of the CASTLE_* flags
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Sets the castling rights (used when setting up positions).
+     * @param rights Bit mask of the CASTLE_* flags
+     */
+    public void setCastlingRights(int rights) {
+        key ^= stateKey();
+        castlingRights = rights & CASTLE_ALL;
+        key ^= stateKey();
+    }
+
+    /**
+     * Gets the number of plies since the last capture or pawn move (for the 50- and 75-move rules).
+     * @return The halfmove clock
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Sets the halfmove clock (used when setting up positions).
+     * @param plies Plies since the last capture or pawn move
+     */
+    public void setHalfmoveClock(int plies) {
+        this.halfmoveClock = plies;
+    }
+
+    /**
+     * Gets the number of the current full move: 1 at the start, increased after each Black move.
+     * @return The fullmove number
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Sets the fullmove number (used when setting up positions).
+     * @param number The number of the current full move, from 1
+     */
+    public void setFullmoveNumber(int number) {
+        this.fullmoveNumber = number;
+    }
+
+    /**
+     * Counts how many times the current position has occurred, including now.
+     * Positions are compared by key, and only the keys since the last capture or
+     * pawn move are scanned (earlier positions cannot come back), checking every
+     * second ply so that only positions with the same side to move are compared.
+     * @return The number of occurrences of the current position, at least 1
+     */
+    public int getRepetitionCount() {
+        int count = 1;
+        int oldest = Math.max(0, undoSize - halfmoveClock);
+        for (int ply = undoSize - 2; ply >= oldest; ply -= 2) {
+            if (undoStack[ply].previousKey == key) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the keys of the earlier positions that could still repeat, that is those
+     * reached since the last capture or pawn move, oldest first. A search working on a
+     * copy of the board uses them to see repetitions of positions played before the copy.
+     * @return The keys of earlier positions, not including the current one
+     */
+    public long[] getKeyHistory() {
+        int count = Math.min(halfmoveClock, undoSize);
+        long[] history = new long[count];
+        for (int i = 0; i < count; i++) {
+            history[i] = undoStack[undoSize - count + i].previousKey;
+        }
+        return history;
+    }
+
+    /**
+     * Sets the en passant square (used when setting up positions).
+     * @param square The square a pawn just skipped over, or -1 for none
+     */
+    void setEnPassantSquare(int square) {
+        key ^= stateKey();
+        enPassantSquare = square;
+        key ^= stateKey();
+    }
+
+    /**
+     * Gets the bitboard view of the current piece placement.
+     * The returned object is live and must not be modified by callers.
+     * @return The bitboards backing this board
+     */
+    public BitboardPosition getBitboards() {
+        return bitboards;
     }
 
     /**
@@ -62,70 +327,75 @@ public class Board {
      */
     public boolean isPathClear(Square from, Square to) {
         if (from == null || to == null) return false;
-        if (!isInBounds(from) || !isInBounds(to)) return false;
-
-        int df = to.getFile() - from.getFile();
-        int dr = to.getRank() - from.getRank();
-
-        int stepF = Integer.compare(df, 0);
-        int stepR = Integer.compare(dr, 0);
-
-        if (stepF != 0 && stepR != 0 && Math.abs(df) != Math.abs(dr)) {
-            return false;
-        }
-
-        int curF = from.getFile() + stepF;
-        int curR = from.getRank() + stepR;
-
-        while (curF != to.getFile() || curR != to.getRank()) {
-            Piece p = squares[curR][curF];
-            if (p != null) return false;
-            curF += stepF;
-            curR += stepR;
-        }
-        return true;
+        int a = from.getIndex();
+        int b = to.getIndex();
+        if (a != b && Attacks.line(a, b) == 0) return false;
+        return (Attacks.between(a, b) & bitboards.getOccupancy()) == 0;
     }
 
     /**
      * Creates a deep copy of this board, including all pieces and the last move.
+     * The copy starts with an empty undo history.
      * @return A new Board instance with copies of all pieces
      */
     public Board clone() {
         Board b = new Board();
-        b.squares = new Piece[8][8];
-
-        for (int r = 0; r < 8; r++) {
-            for (int f = 0; f < 8; f++) {
-                Piece p = this.squares[r][f];
-                if (p != null)
-                    b.squares[r][f] = p.copy();
-            }
+        for (int i = 0; i < 64; i++) {
+            Piece p = this.squares[i];
+            if (p != null)
+                b.squares[i] = p.copy();
         }
-        if (this.lastMove != null)
-            b.lastMove = new Move(
-                    new Square(lastMove.getFrom().getFile(), lastMove.getFrom().getRank()),
-                    new Square(lastMove.getTo().getFile(), lastMove.getTo().getRank())
-            );
+        b.bitboards.copyFrom(this.bitboards);
+        b.lastMove = this.lastMove;
+        b.sideToMove = this.sideToMove;
+        b.castlingRights = this.castlingRights;
+        b.enPassantSquare = this.enPassantSquare;
+        b.halfmoveClock = this.halfmoveClock;
+        b.fullmoveNumber = this.fullmoveNumber;
+        b.key = this.key;
+        b.pawnKey = this.pawnKey;
+        b.middlegameScore = this.middlegameScore;
+        b.endgameScore = this.endgameScore;
+        b.phase = this.phase;
 
         return b;
     }
 
 
-    private Move lastMove = null;
+    private int lastMove = PackedMove.NONE;
+    private UndoInfo[] undoStack = new UndoInfo[64];
+    private int undoSize = 0;
 
     /**
      * Gets the last move made on this board.
      * @return The last Move, or null if no moves have been made
      */
     public Move getLastMove() {
-        return lastMove;
+        return PackedMove.toMove(lastMove);
+    }
+
+    /**
+     * Replaces the last move without moving any pieces (used when setting up positions).
+     * @param move The move to treat as the last one played, or null
+     */
+    void setLastMove(Move move) {
+        this.lastMove = (move == null) ? PackedMove.NONE : encode(move);
+    }
+
+    /**
+     * Replaces the last move with a packed move without moving any pieces (used when setting up positions).
+     * @param move The packed move to treat as the last one played, or PackedMove.NONE
+     */
+    void setLastMove(int move) {
+        this.lastMove = move;
     }
 
     /**
      * Applies a move to the board, handling all special cases.
      * Handles: regular moves, captures, en passant, castling, and pawn promotion.
      * Updates piece positions and tracks moved pieces for castling rights.
-     * 
+     * If a pawn reaches the last rank without a promotion type, the player is asked to choose one.
+     *
      * @param move The move to apply
      * @return The captured piece, or null if no capture occurred
      */
@@ -138,74 +408,353 @@ public class Board {
         Piece moving = getPieceAt(from);
         if (moving == null) return null;
 
-        Piece captured = null;
+        if (move.getPromotion() == null && isPawnPromotion(moving, to)) {
+            Piece promoted = PawnPromotionHandler.promote(moving.getColor(), to);
+            move = Move.of(from, to, promoted.getType());
+        }
+        if (!makeMove(move)) return null;
+        return undoStack[undoSize - 1].captured;
+    }
+
+    /**
+     * Makes a move in place and records how to take it back with {@link #unmakeMove()}.
+     * Handles the same special cases as {@link #applyMove(Move)}, except that a pawn
+     * reaching the last rank without a promotion type becomes a queen instead of
+     * prompting the player. No boards are copied, so this is the cheap way to try
+     * a move during legality checks.
+     *
+     * @param move The move to make
+     * @return true if the move was made, false if there is no piece on the starting square
+     */
+    public boolean makeMove(Move move) {
+        if (move == null) return false;
+        if (!isInBounds(move.getFrom()) || !isInBounds(move.getTo())) return false;
+        if (getPieceAt(move.getFrom()) == null) return false;
+        return makeMove(encode(move));
+    }
 
-        if (isEnPassantMove(move, moving)) {
-            Square lastLanding = lastMove.getTo();
-            captured = getPieceAt(lastLanding);
-            setPieceAt(lastLanding, null);
-        } else {
-            captured = getPieceAt(to);
+    /**
+     * Makes a packed move in place and records how to take it back with {@link #unmakeMove()}.
+     * The move's flags are trusted as produced by {@link MoveGenerator} or {@link #encode(Move)}.
+     *
+     * @param move The packed move to make
+     * @return true if the move was made, false if there is no piece on the starting square
+     */
+    public boolean makeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        Piece moving = squares[from];
+        if (moving == null) return false;
+
+        UndoInfo undo = pushUndo();
+        undo.move = move;
+        undo.moved = moving;
+        undo.movedHadMoved = hasMoved(moving);
+        undo.previousLastMove = lastMove;
+        undo.previousCastlingRights = castlingRights;
+        undo.previousEnPassantSquare = enPassantSquare;
+        undo.previousSideToMove = sideToMove;
+        undo.previousKey = key;
+        undo.previousHalfmoveClock = halfmoveClock;
+        key ^= stateKey();
+
+        int capturedSquare = PackedMove.isEnPassant(move) ? (from & ~7) | (to & 7) : to;
+        undo.captured = squares[capturedSquare];
+        undo.capturedSquare = capturedSquare;
+        if (capturedSquare != to) {
+            put(capturedSquare, null);
         }
 
-        setPieceAt(to, moving);
-        setPieceAt(from, null);
-        moving.setPosition(to.getFile(), to.getRank());
+        put(to, moving);
+        put(from, null);
+        moving.setPosition(to & 7, to >>> 3);
 
         // Track hasMoved for castling purposes
-        if (moving.getType() == PieceType.KING && moving instanceof pieces.King) {
-            ((pieces.King) moving).setHasMoved(true);
+        setHasMoved(moving, true);
+
+        if (PackedMove.isCastle(move)) {
+            boolean kingside = to > from;
+            int rookFrom = kingside ? from + 3 : from - 4;
+            int rookTo = kingside ? from + 1 : from - 1;
+            Piece rook = squares[rookFrom];
+            if (rook != null && rook.getType() == PieceType.ROOK) {
+                undo.rook = rook;
+                undo.rookFrom = rookFrom;
+                undo.rookTo = rookTo;
+                undo.rookHadMoved = hasMoved(rook);
+                put(rookTo, rook);
+                put(rookFrom, null);
+                rook.setPosition(rookTo & 7, rookTo >>> 3);
+                setHasMoved(rook, true);
+            }
         }
-        if (moving.getType() == PieceType.ROOK && moving instanceof pieces.Rook) {
-            ((pieces.Rook) moving).setHasMoved(true);
+
+        PieceType promoType = PackedMove.promotion(move);
+        if (promoType != null && moving.getType() == PieceType.PAWN) {
+            // Reuses the piece of an earlier promotion that was taken back, so the search does not allocate
+            if (promoType == PieceType.KING || promoType == PieceType.PAWN) promoType = PieceType.QUEEN;
+            Piece promoted = takeSpare(moving.getColor(), promoType, to);
+            put(to, promoted);
+            undo.promoted = promoted;
         }
 
-        if (moving.getType() == PieceType.KING) {
-            int dx = to.getFile() - from.getFile();
-            if (dx == 2) {
-                int rank = from.getRank();
-                Piece rook = getPieceAt(new Square(7, rank));
-                if (rook != null && rook.getType() == PieceType.ROOK) {
-                    setPieceAt(new Square(5, rank), rook);
-                    setPieceAt(new Square(7, rank), null);
-                    rook.setPosition(5, rank);
-                    if (rook instanceof pieces.Rook) {
-                        ((pieces.Rook) rook).setHasMoved(true);
-                    }
-                }
-            } else if (dx == -2) {
-                int rank = from.getRank();
-                Piece rook = getPieceAt(new Square(0, rank));
-                if (rook != null && rook.getType() == PieceType.ROOK) {
-                    setPieceAt(new Square(3, rank), rook);
-                    setPieceAt(new Square(0, rank), null);
-                    rook.setPosition(3, rank);
-                    if (rook instanceof pieces.Rook) {
-                        ((pieces.Rook) rook).setHasMoved(true);
-                    }
-                }
+        Color mover = moving.getColor();
+        halfmoveClock = (undo.captured != null || moving.getType() == PieceType.PAWN) ? 0 : halfmoveClock + 1;
+        castlingRights &= CASTLE_MASK[from] & CASTLE_MASK[to];
+        enPassantSquare = -1;
+        if (PackedMove.isDoublePush(move)) {
+            // Only record the square when an enemy pawn could actually capture onto it,
+            // so positions that differ only by an unusable en passant square share a key
+            int skipped = (from + to) >>> 1;
+            Color them = mover == Color.WHITE ? Color.BLACK : Color.WHITE;
+            if ((Attacks.pawn(mover, skipped) & bitboards.getPieces(them, PieceType.PAWN)) != 0) {
+                enPassantSquare = skipped;
             }
         }
+        if (mover == Color.BLACK) fullmoveNumber++;
+        sideToMove = mover == Color.WHITE ? Color.BLACK : Color.WHITE;
+        key ^= stateKey();
+        lastMove = move;
+        return true;
+    }
+
+    /**
+     * Takes back the most recent move made with {@link #makeMove(Move)} or {@link #applyMove(Move)},
+     * restoring captured pieces, castling rooks, promoted pawns, moved flags, the last move,
+     * castling rights, en passant square, side to move, halfmove clock and key.
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        UndoInfo undo = undoStack[--undoSize];
+        int from = PackedMove.from(undo.move);
+        int to = PackedMove.to(undo.move);
+
+        if (undo.rook != null) {
+            put(undo.rookTo, null);
+            put(undo.rookFrom, undo.rook);
+            undo.rook.setPosition(undo.rookFrom & 7, undo.rookFrom >>> 3);
+            setHasMoved(undo.rook, undo.rookHadMoved);
+        }
 
-        PieceType promoType = move.getPromotion();
-        if (promoType != null && moving.getType() == PieceType.PAWN) {
-            Piece promoted = null;
-            int file = to.getFile();
-            int rank = to.getRank();
-            switch (promoType) {
-                case QUEEN -> promoted = new pieces.Queen(moving.getColor(), file, rank);
-                case ROOK -> promoted = new pieces.Rook(moving.getColor(), file, rank);
-                case BISHOP -> promoted = new pieces.Bishop(moving.getColor(), file, rank);
-                case KNIGHT -> promoted = new pieces.Knight(moving.getColor(), file, rank);
-                default -> promoted = new pieces.Queen(moving.getColor(), file, rank);
+        put(to, null);
+        if (undo.promoted != null) addSpare(undo.promoted);
+        put(from, undo.moved);
+        undo.moved.setPosition(from & 7, from >>> 3);
+        setHasMoved(undo.moved, undo.movedHadMoved);
+
+        if (undo.captured != null) {
+            put(undo.capturedSquare, undo.captured);
+        }
+        lastMove = undo.previousLastMove;
+        castlingRights = undo.previousCastlingRights;
+        enPassantSquare = undo.previousEnPassantSquare;
+        sideToMove = undo.previousSideToMove;
+        key = undo.previousKey;
+        halfmoveClock = undo.previousHalfmoveClock;
+        if (sideToMove == Color.BLACK) fullmoveNumber--;
+        undo.reset();
+    }
+
+    /**
+     * Packs a Move for this position, working out its capture, en passant,
+     * castling and double-push flags from the pieces on the board.
+     * A pawn reaching the last rank without a promotion type is encoded as a queen promotion.
+     *
+     * @param move The move to encode
+     * @return The packed move
+     */
+    public int encode(Move move) {
+        Square fromSquare = move.getFrom();
+        Square toSquare = move.getTo();
+        int from = BitboardPosition.squareIndex(fromSquare.getFile(), fromSquare.getRank());
+        int to = BitboardPosition.squareIndex(toSquare.getFile(), toSquare.getRank());
+        Piece moving = squares[from];
+        PieceType promotion = move.getPromotion();
+        int flags = 0;
+        if (squares[to] != null) {
+            flags |= PackedMove.FLAG_CAPTURE;
+        }
+        if (moving != null && moving.getType() == PieceType.KING && Math.abs((to & 7) - (from & 7)) == 2) {
+            flags |= PackedMove.FLAG_CASTLE;
+        }
+        if (moving != null && moving.getType() == PieceType.PAWN) {
+            if (isEnPassantMove(move, moving)) {
+                flags |= PackedMove.FLAG_EN_PASSANT;
+            } else if (Math.abs((to >>> 3) - (from >>> 3)) == 2) {
+                flags |= PackedMove.FLAG_DOUBLE_PUSH;
             }
-            setPieceAt(to, promoted);
-        } else if (isPawnPromotion(moving, to)) {
-            Piece promoted = PawnPromotionHandler.promote(moving.getColor(), to);
-            setPieceAt(to, promoted);
+            if (promotion == null && isPawnPromotion(moving, toSquare)) {
+                promotion = PieceType.QUEEN;
+            }
+        } else {
+            promotion = null;
         }
-        lastMove = move;
-        return captured;
+        return PackedMove.encode(from, to, promotion, flags);
+    }
+
+    /**
+     * Gets the number of moves that can currently be taken back.
+     * @return The depth of the undo stack
+     */
+    public int getUndoDepth() {
+        return undoSize;
+    }
+
+    /**
+     * Removes every piece and forgets the move history.
+     * Afterwards White is to move at move 1 with no castling rights and no en passant square.
+     * The removed pieces are kept so that setting up the next position can reuse them.
+     */
+    public void clear() {
+        for (int i = 0; i < 64; i++) {
+            if (squares[i] == null) continue;
+            addSpare(squares[i]);
+            squares[i] = null;
+        }
+        bitboards.clear();
+        lastMove = PackedMove.NONE;
+        sideToMove = Color.WHITE;
+        castlingRights = 0;
+        enPassantSquare = -1;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        middlegameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        pawnKey = 0L;
+        key = stateKey();
+        while (undoSize > 0) {
+            undoStack[--undoSize].reset();
+        }
+    }
+
+    /**
+     * Puts a new piece on an empty square while setting up a position, reusing a piece
+     * removed by {@link #clear()} when one of the same color and type is available.
+     * The piece starts as unmoved, like a newly created one.
+     *
+     * @param index The square index
+     * @param color The piece color
+     * @param type The piece type
+     * @return The placed piece
+     */
+    Piece placePiece(int index, Color color, PieceType type) {
+        Piece piece = takeSpare(color, type, index);
+        put(index, piece);
+        return piece;
+    }
+
+    /**
+     * Gets an unmoved piece standing on a square, reusing a spare of the same color and type
+     * when there is one and creating it otherwise. The piece is not put on the board.
+     */
+    private Piece takeSpare(Color color, PieceType type, int index) {
+        int file = index & 7;
+        int rank = index >>> 3;
+        int kind = BitboardPosition.pieceIndex(color, type);
+        if (spareCounts[kind] == 0) {
+            return switch (type) {
+                case KING -> new pieces.King(color, file, rank);
+                case QUEEN -> new pieces.Queen(color, file, rank);
+                case ROOK -> new pieces.Rook(color, file, rank);
+                case BISHOP -> new pieces.Bishop(color, file, rank);
+                case KNIGHT -> new pieces.Knight(color, file, rank);
+                case PAWN -> new pieces.Pawn(color, file, rank);
+            };
+        }
+        // The slot keeps its stale reference; the next addSpare overwrites it
+        Piece piece = spares[kind][--spareCounts[kind]];
+        piece.setPosition(file, rank);
+        setHasMoved(piece, false);
+        return piece;
+    }
+
+    /**
+     * Keeps a piece that left the board for reuse by {@link #takeSpare}.
+     */
+    private void addSpare(Piece piece) {
+        int kind = BitboardPosition.pieceIndex(piece.getColor(), piece.getType());
+        Piece[] pool = spares[kind];
+        if (pool == null) {
+            pool = spares[kind] = new Piece[8];
+        } else if (spareCounts[kind] == pool.length) {
+            pool = spares[kind] = Arrays.copyOf(pool, pool.length * 2);
+        }
+        pool[spareCounts[kind]++] = piece;
+    }
+
+    /**
+     * Takes the next free record from the undo stack, growing the stack if needed.
+     * @return A cleared undo record
+     */
+    private UndoInfo pushUndo() {
+        if (undoSize == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+        }
+        UndoInfo undo = undoStack[undoSize];
+        if (undo == null) {
+            undo = new UndoInfo();
+            undoStack[undoSize] = undo;
+        }
+        undoSize++;
+        return undo;
+    }
+
+    /**
+     * Reads the castling-relevant moved flag of a king or rook.
+     * @param piece The piece to inspect
+     * @return The piece's moved flag, or false for other piece types
+     */
+    private static boolean hasMoved(Piece piece) {
+        if (piece instanceof pieces.King) return ((pieces.King) piece).hasMoved();
+        if (piece instanceof pieces.Rook) return ((pieces.Rook) piece).hasMoved();
+        return false;
+    }
+
+    /**
+     * Sets the castling-relevant moved flag of a king or rook.
+     * @param piece The piece to update (other piece types are ignored)
+     * @param value The new moved flag
+     */
+    private static void setHasMoved(Piece piece, boolean value) {
+        if (piece instanceof pieces.King) ((pieces.King) piece).setHasMoved(value);
+        else if (piece instanceof pieces.Rook) ((pieces.Rook) piece).setHasMoved(value);
+    }
+
+    /**
+     * Checks if a side still has the right to castle on one wing.
+     * The right must not have been lost, and the king and the rook must both
+     * stand on their home squares. Whether the squares in between are empty
+     * or attacked is not checked here.
+     *
+     * @param color The side to check
+     * @param kingside true for kingside (O-O), false for queenside (O-O-O)
+     * @return true if the castling right is still available
+     */
+    public boolean canCastle(Color color, boolean kingside) {
+        int right = (color == Color.WHITE)
+                ? (kingside ? CASTLE_WHITE_KINGSIDE : CASTLE_WHITE_QUEENSIDE)
+                : (kingside ? CASTLE_BLACK_KINGSIDE : CASTLE_BLACK_QUEENSIDE);
+        if ((castlingRights & right) == 0) return false;
+        int home = (color == Color.WHITE) ? 0 : 56;
+        Piece king = squares[home + 4];
+        if (!(king instanceof pieces.King) || king.getColor() != color) return false;
+        Piece rook = squares[home + (kingside ? 7 : 0)];
+        return rook instanceof pieces.Rook && rook.getColor() == color;
+    }
+
+    /**
+     * Gets the square a pawn skipped over with a double step on the last move,
+     * if an enemy pawn stands ready to capture onto it en passant.
+     *
+     * @return The skipped square index (rank * 8 + file), or -1 if there is none
+     */
+    public int getEnPassantSquare() {
+        return enPassantSquare;
     }
 
     /**
@@ -228,90 +777,66 @@ public class Board {
     /**
      * Checks if a square is under attack by pieces of a given color.
      * Considers all piece types: pawns, knights, bishops, rooks, queens, and kings.
-     * 
+     *
      * @param target The square to check
      * @param byColor The attacking color
      * @return true if any piece of byColor can attack the target square
      */
     public boolean isSquareAttacked(Square target, Color byColor) {
         if (target == null) return false;
-        int tx = target.getFile();
-        int ty = target.getRank();
-
-        // Pawn attacks
-        int pawnDir = (byColor == Color.WHITE) ? 1 : -1;
-        int[] pFiles = new int[]{tx - 1, tx + 1};
-        for (int pf : pFiles) {
-            int pr = ty - pawnDir;
-            if (pf >= 0 && pf < 8 && pr >= 0 && pr < 8) {
-                Piece p = squares[pr][pf];
-                if (p != null && p.getColor() == byColor && p.getType() == PieceType.PAWN) return true;
-            }
-        }
-
-        int[][] knightOffsets = {{1,2},{2,1},{2,-1},{1,-2},{-1,-2},{-2,-1},{-2,1},{-1,2}};
-        for (int[] o : knightOffsets) {
-            int fx = tx + o[0];
-            int ry = ty + o[1];
-            if (fx >= 0 && fx < 8 && ry >= 0 && ry < 8) {
-                Piece p = squares[ry][fx];
-                if (p != null && p.getColor() == byColor && p.getType() == PieceType.KNIGHT) return true;
-            }
-        }
+        return bitboards.isSquareAttacked(
+                BitboardPosition.squareIndex(target.getFile(), target.getRank()), byColor);
+    }
 
-        for (int df = -1; df <= 1; df++) for (int dr = -1; dr <= 1; dr++) {
-            if (df == 0 && dr == 0) continue;
-            int fx = tx + df;
-            int ry = ty + dr;
-            if (fx >= 0 && fx < 8 && ry >= 0 && ry < 8) {
-                Piece p = squares[ry][fx];
-                if (p != null && p.getColor() == byColor && p.getType() == PieceType.KING) return true;
-            }
-        }
+    /**
+     * Checks if a square is under attack by pieces of a given color.
+     * @param square The square index
+     * @param byColor The attacking color
+     * @return true if any piece of byColor can attack the square
+     */
+    public boolean isSquareAttacked(int square, Color byColor) {
+        return bitboards.isSquareAttacked(square, byColor);
+    }
 
-        int[][] directions = {{1,0},{-1,0},{0,1},{0,-1},{1,1},{1,-1},{-1,1},{-1,-1}};
-        for (int i = 0; i < directions.length; i++) {
-            int df = directions[i][0];
-            int dr = directions[i][1];
-            int fx = tx + df;
-            int ry = ty + dr;
-            while (fx >= 0 && fx < 8 && ry >= 0 && ry < 8) {
-                Piece p = squares[ry][fx];
-                if (p != null) {
-                    if (p.getColor() == byColor) {
-                        PieceType t = p.getType();
-                        boolean orth = (i < 4);
-                        boolean diag = (i >= 4);
-                        if ((orth && (t == PieceType.ROOK || t == PieceType.QUEEN)) ||
-                                (diag && (t == PieceType.BISHOP || t == PieceType.QUEEN))) {
-                            return true;
-                        }
-                    }
-                    break;
-                }
-                fx += df; ry += dr;
-            }
-        }
+    /**
+     * Gets the squares of every piece of one color and type.
+     * The bitboards are updated with every move, so this is the piece list of that type:
+     * iterate it with Long.numberOfTrailingZeros and {@code pieces &= pieces - 1}
+     * instead of scanning the 64 squares.
+     *
+     * @param color The piece color
+     * @param type The piece type
+     * @return Bitboard of matching pieces
+     */
+    public long getPieces(Color color, PieceType type) {
+        return bitboards.getPieces(color, type);
+    }
 
-        return false;
+    /**
+     * Gets the square of the king of the specified color without allocating.
+     * @param color The color of the king to find
+     * @return The king's square index, or -1 if there is no such king
+     */
+    public int getKingSquare(Color color) {
+        return bitboards.getKingSquare(color);
     }
 
     /**
-     * Checks if two squares represent the same position.
-     * @param a First square
-     * @param b Second square
-     * @return true if both squares have the same file and rank
+     * Finds the king of the specified color.
+     * @param color The color of the king to find
+     * @return The Square containing the king, or null if not found
      */
-    private boolean sameSquare(Square a, Square b) {
-        if (a == null || b == null) return false;
-        return a.getFile() == b.getFile() && a.getRank() == b.getRank();
+    public Square findKing(Color color) {
+        int index = bitboards.getKingSquare(color);
+        if (index < 0) return null;
+        return Square.of(index);
     }
 
     /**
      * Determines if a move is an en passant capture.
      * En passant is a special pawn capture that occurs when an opponent's pawn
      * moves two squares forward and lands beside your pawn.
-     * 
+     *
      * @param move The move to check
      * @param moving The piece making the move
      * @return true if this is a valid en passant capture
@@ -319,7 +844,6 @@ public class Board {
     private boolean isEnPassantMove(Move move, Piece moving) {
         if (moving == null || move == null) return false;
         if (moving.getType() != PieceType.PAWN) return false;
-        if (lastMove == null) return false;
 
         Square from = move.getFrom();
         Square to = move.getTo();
@@ -333,27 +857,17 @@ public class Board {
 
         if (getPieceAt(to) != null) return false;
 
-        Square lmFrom = lastMove.getFrom();
-        Square lmTo = lastMove.getTo();
-        if (lmFrom == null || lmTo == null) return false;
-        Piece lastMovedPiece = getPieceAt(lmTo);
-        if (lastMovedPiece == null || lastMovedPiece.getType() != PieceType.PAWN) return false;
-        if (Math.abs(lmTo.getRank() - lmFrom.getRank()) != 2) return false;
-
-        int passedRank = (lmFrom.getRank() + lmTo.getRank()) / 2;
-        Square passedOver = new Square(lmTo.getFile(), passedRank);
+        int passedOver = getEnPassantSquare();
+        if (passedOver != BitboardPosition.squareIndex(to.getFile(), to.getRank())) return false;
 
-        if (sameSquare(to, passedOver)) {
-            if (lmTo.getRank() == from.getRank() && Math.abs(lmTo.getFile() - from.getFile()) == 1) {
-                return true;
-            }
-        }
-        return false;
+        int lmTo = PackedMove.to(lastMove);
+        return (lmTo >>> 3) == from.getRank() && Math.abs((lmTo & 7) - from.getFile()) == 1;
     }
 
     /**
-     * Simulate the given move on a clone of this board and detect whether
+     * Simulate the given move in place and detect whether
      * the moving side's king would be left in check.
+     * The move is taken back before returning, so the board is unchanged.
      *
      * @param move the move to simulate
      * @param movingColor the color performing the move
@@ -361,32 +875,17 @@ public class Board {
      */
     public boolean simulateMoveAndDetectSelfCheck(Move move, Color movingColor) {
         if (move == null || movingColor == null) return false;
-        Board copy = this.clone();
 
         Square from = move.getFrom();
         Square to = move.getTo();
         if (from == null || to == null) return false;
-        Move copyMove = new Move(new Square(from.getFile(), from.getRank()), new Square(to.getFile(), to.getRank()));
-
-        copy.applyMove(copyMove);
-
-        Square kingSquare = null;
-        for (int r = 0; r < 8 && kingSquare == null; r++) {
-            for (int f = 0; f < 8; f++) {
-                Piece p = copy.getPieceAt(new Square(f, r));
-                if (p != null && p.getColor() == movingColor && p.getType() == PieceType.KING) {
-                    kingSquare = new Square(f, r);
-                    break;
-                }
-            }
-        }
-
-        if (kingSquare == null) {
-            return false;
-        }
+        if (!makeMove(Move.of(from, to))) return false;
 
+        int king = bitboards.getKingSquare(movingColor);
         Color opponent = (movingColor == Color.WHITE) ? Color.BLACK : Color.WHITE;
-        return copy.isSquareAttacked(kingSquare, opponent);
+        boolean inCheck = king >= 0 && bitboards.isSquareAttacked(king, opponent);
+        unmakeMove();
+        return inCheck;
     }
 
 
@@ -0,0 +1,333 @@
+package board;
+
+import enums.Color;
+import enums.PieceType;
+import java.util.Arrays;
+import pieces.King;
+import pieces.Piece;
+import pieces.Rook;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation (FEN).
+ * Covers piece placement, side to move, castling rights, the en passant square
+ * and the halfmove and fullmove counters.
+ *
+ * Parsing is a single pass over the characters with no intermediate strings, and the
+ * pieces come from {@link Board#placePiece}, which reuses the ones taken off by
+ * {@link Board#clear()}; loading position after position into the same board allocates nothing.
+ * EPD lines are accepted too: anything after the en passant field that is not a number is ignored.
+ */
+public final class Fen {
+    /** FEN of the standard starting position. */
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /** FEN letters of the piece types in PieceType order, white then black. */
+    private static final String PIECE_LETTERS = "KQRBNPkqrbnp";
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+    /** Position of each ASCII character in PIECE_LETTERS, -1 for characters that are not piece letters. */
+    private static final byte[] PIECE_CODES = new byte[128];
+
+    static {
+        Arrays.fill(PIECE_CODES, (byte) -1);
+        for (int i = 0; i < PIECE_LETTERS.length(); i++) {
+            PIECE_CODES[PIECE_LETTERS.charAt(i)] = (byte) i;
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private Fen() {}
+
+    /**
+     * Clears the board and places the position described by a FEN string on it.
+     * Castling rights are stored on the board, less any whose king or rook is not on its home
+     * square, and mirrored in the moved flags of kings and rooks; the en passant square is stored along with a matching last move. It must be
+     * on the sixth rank with White to move (third with Black), empty, and in front of an enemy pawn.
+     * Missing trailing fields default to "- - 0 1".
+     * Each side must have exactly one king, and no pawn may stand on the first or eighth rank.
+     *
+     * @param board The board to set up
+     * @param fen The FEN string
+     * @return The side to move
+     * @throws IllegalArgumentException if the FEN string is malformed or the position is impossible
+     */
+    public static Color load(Board board, CharSequence fen) {
+        if (fen == null) throw new IllegalArgumentException("FEN is null");
+        int end = fen.length();
+        int pos = skipSpaces(fen, 0, end);
+
+        board.clear();
+        int rank = 7;
+        int file = 0;
+        int whiteKings = 0;
+        int blackKings = 0;
+        for (; pos < end && !isSpace(fen.charAt(pos)); pos++) {
+            char c = fen.charAt(pos);
+            if (c == '/') {
+                if (file != 8 || rank == 0) throw malformed("placement", fen);
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+                if (file > 8) throw malformed("placement", fen);
+            } else {
+                int letter = c < 128 ? PIECE_CODES[c] : -1;
+                if (letter < 0) throw new IllegalArgumentException("Bad FEN piece '" + c + "': " + fen);
+                if (file > 7) throw malformed("placement", fen);
+                Color color = letter < 6 ? Color.WHITE : Color.BLACK;
+                PieceType type = PIECE_TYPES[letter % 6];
+                if (type == PieceType.PAWN && (rank == 0 || rank == 7)) {
+                    throw new IllegalArgumentException("Bad FEN: pawn on the first or eighth rank: " + fen);
+                }
+                if (type == PieceType.KING) {
+                    if (color == Color.WHITE) whiteKings++;
+                    else blackKings++;
+                }
+                board.placePiece(rank * 8 + file, color, type);
+                file++;
+            }
+        }
+        if (rank != 0 || file != 8) throw malformed("placement", fen);
+        if (whiteKings != 1 || blackKings != 1) {
+            throw new IllegalArgumentException("Bad FEN: each side needs exactly one king: " + fen);
+        }
+
+        pos = skipSpaces(fen, pos, end);
+        if (pos + 1 < end && !isSpace(fen.charAt(pos + 1))) throw malformed("side to move", fen);
+        char side = pos < end ? fen.charAt(pos) : ' ';
+        Color toMove;
+        if (side == 'w') toMove = Color.WHITE;
+        else if (side == 'b') toMove = Color.BLACK;
+        else throw malformed("side to move", fen);
+        board.setSideToMove(toMove);
+        pos = skipSpaces(fen, pos + 1, end);
+
+        int rights = 0;
+        if (pos < end && fen.charAt(pos) == '-') {
+            pos++;
+        } else {
+            for (; pos < end && !isSpace(fen.charAt(pos)); pos++) {
+                switch (fen.charAt(pos)) {
+                    case 'K' -> rights |= Board.CASTLE_WHITE_KINGSIDE;
+                    case 'Q' -> rights |= Board.CASTLE_WHITE_QUEENSIDE;
+                    case 'k' -> rights |= Board.CASTLE_BLACK_KINGSIDE;
+                    case 'q' -> rights |= Board.CASTLE_BLACK_QUEENSIDE;
+                    default -> throw malformed("castling", fen);
+                }
+            }
+        }
+        // A right without its king and rook at home can never be used; keep it out of the key
+        rights = homeRights(board, rights);
+        board.setCastlingRights(rights);
+        setCastling(board, Color.WHITE, rights & Board.CASTLE_WHITE_KINGSIDE, rights & Board.CASTLE_WHITE_QUEENSIDE);
+        setCastling(board, Color.BLACK, rights & Board.CASTLE_BLACK_KINGSIDE, rights & Board.CASTLE_BLACK_QUEENSIDE);
+        pos = skipSpaces(fen, pos, end);
+
+        if (pos < end && fen.charAt(pos) == '-') {
+            pos++;
+        } else if (pos < end) {
+            int epFile = fen.charAt(pos) - 'a';
+            int epRank = pos + 1 < end ? fen.charAt(pos + 1) - '1' : -1;
+            if (epFile < 0 || epFile > 7 || epRank != (toMove == Color.WHITE ? 5 : 2)) {
+                throw malformed("en passant square", fen);
+            }
+            // The square was just crossed by an enemy pawn, which now stands right in front of it
+            int square = epRank * 8 + epFile;
+            Piece pushed = board.getPieceAt(toMove == Color.WHITE ? square - 8 : square + 8);
+            if (board.getPieceAt(square) != null || pushed == null
+                    || pushed.getType() != PieceType.PAWN || pushed.getColor() == toMove) {
+                throw malformed("en passant square", fen);
+            }
+            pos += 2;
+            setEnPassant(board, square, toMove);
+        }
+        pos = skipSpaces(fen, pos, end);
+
+        // Counters are optional; EPD operations in their place are skipped
+        if (pos < end && isDigit(fen.charAt(pos))) {
+            int clock = 0;
+            for (; pos < end && isDigit(fen.charAt(pos)); pos++) clock = clock * 10 + (fen.charAt(pos) - '0');
+            board.setHalfmoveClock(clock);
+            pos = skipSpaces(fen, pos, end);
+            if (pos < end && isDigit(fen.charAt(pos))) {
+                int number = 0;
+                for (; pos < end && isDigit(fen.charAt(pos)); pos++) number = number * 10 + (fen.charAt(pos) - '0');
+                board.setFullmoveNumber(Math.max(1, number));
+            }
+        }
+        return toMove;
+    }
+
+    /**
+     * Writes the FEN of a board's current position.
+     * @param board The position
+     * @return The FEN string
+     */
+    public static String toFen(Board board) {
+        StringBuilder sb = new StringBuilder(90);
+        append(board, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Appends the FEN of a board's current position to a builder, for writing many positions
+     * without a string per position.
+     * The en passant square is written only when a pawn can capture onto it, as the board keeps it.
+     *
+     * @param board The position
+     * @param out The builder to append to
+     */
+    public static void append(Board board, StringBuilder out) {
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                Piece piece = board.getPieceAt(rank * 8 + file);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) out.append((char) ('0' + empty));
+                empty = 0;
+                out.append(PIECE_LETTERS.charAt(piece.getType().ordinal() + (piece.getColor() == Color.WHITE ? 0 : 6)));
+            }
+            if (empty > 0) out.append((char) ('0' + empty));
+            if (rank > 0) out.append('/');
+        }
+        out.append(board.getSideToMove() == Color.WHITE ? " w " : " b ");
+
+        int length = out.length();
+        if (board.canCastle(Color.WHITE, true)) out.append('K');
+        if (board.canCastle(Color.WHITE, false)) out.append('Q');
+        if (board.canCastle(Color.BLACK, true)) out.append('k');
+        if (board.canCastle(Color.BLACK, false)) out.append('q');
+        if (out.length() == length) out.append('-');
+
+        int enPassant = board.getEnPassantSquare();
+        out.append(' ');
+        if (enPassant < 0) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + (enPassant & 7))).append((char) ('1' + (enPassant >>> 3)));
+        }
+        out.append(' ').append(board.getHalfmoveClock()).append(' ').append(board.getFullmoveNumber());
+    }
+
+    /**
+     * Gets the FEN of the color-flipped position: the board mirrored top to bottom with
+     * White and Black swapped, including the side to move, castling rights and en passant square.
+     * The result is the same game seen from the other side, so it evaluates to the same score
+     * for the side to move.
+     *
+     * @param fen The FEN string
+     * @return The FEN of the mirrored position
+     * @throws IllegalArgumentException if the FEN string is malformed
+     */
+    public static String mirror(CharSequence fen) {
+        Board board = new Board();
+        load(board, fen);
+        StringBuilder out = new StringBuilder(90);
+        for (int rank = 0; rank < 8; rank++) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                Piece piece = board.getPieceAt(rank * 8 + file);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) out.append((char) ('0' + empty));
+                empty = 0;
+                out.append(PIECE_LETTERS.charAt(piece.getType().ordinal() + (piece.getColor() == Color.WHITE ? 6 : 0)));
+            }
+            if (empty > 0) out.append((char) ('0' + empty));
+            if (rank < 7) out.append('/');
+        }
+        out.append(board.getSideToMove() == Color.WHITE ? " b " : " w ");
+
+        int length = out.length();
+        if (board.canCastle(Color.BLACK, true)) out.append('K');
+        if (board.canCastle(Color.BLACK, false)) out.append('Q');
+        if (board.canCastle(Color.WHITE, true)) out.append('k');
+        if (board.canCastle(Color.WHITE, false)) out.append('q');
+        if (out.length() == length) out.append('-');
+
+        int enPassant = board.getEnPassantSquare();
+        out.append(' ');
+        if (enPassant < 0) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + (enPassant & 7))).append((char) ('1' + 7 - (enPassant >>> 3)));
+        }
+        out.append(' ').append(board.getHalfmoveClock()).append(' ').append(board.getFullmoveNumber());
+        return out.toString();
+    }
+
+    /**
+     * Records an en passant target square: the last move becomes the double push across it,
+     * and like Board.makeMove, the square itself is kept only if a pawn can capture onto it.
+     */
+    private static void setEnPassant(Board board, int square, Color toMove) {
+        int dir = (toMove == Color.WHITE) ? 8 : -8;
+        int from = square + dir;
+        int to = square - dir;
+        board.setLastMove(PackedMove.encode(from, to, null, PackedMove.FLAG_DOUBLE_PUSH));
+        Color pusher = (toMove == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        if ((Attacks.pawn(pusher, square) & board.getBitboards().getPieces(toMove, PieceType.PAWN)) != 0) {
+            board.setEnPassantSquare(square);
+        }
+    }
+
+    /**
+     * Marks the king and rooks of one side as moved or unmoved to match the castling rights.
+     */
+    /**
+     * Drops the castling rights whose king or rook is not on its home square, as
+     * {@link Board#canCastle} would.
+     */
+    private static int homeRights(Board board, int rights) {
+        if (!atHome(board, Color.WHITE, 7)) rights &= ~Board.CASTLE_WHITE_KINGSIDE;
+        if (!atHome(board, Color.WHITE, 0)) rights &= ~Board.CASTLE_WHITE_QUEENSIDE;
+        if (!atHome(board, Color.BLACK, 7)) rights &= ~Board.CASTLE_BLACK_KINGSIDE;
+        if (!atHome(board, Color.BLACK, 0)) rights &= ~Board.CASTLE_BLACK_QUEENSIDE;
+        return rights;
+    }
+
+    private static boolean atHome(Board board, Color color, int rookFile) {
+        int home = (color == Color.WHITE) ? 0 : 56;
+        Piece king = board.getPieceAt(home + 4);
+        Piece rook = board.getPieceAt(home + rookFile);
+        return king instanceof King && king.getColor() == color
+                && rook instanceof Rook && rook.getColor() == color;
+    }
+
+    private static void setCastling(Board board, Color color, int kingside, int queenside) {
+        int home = (color == Color.WHITE) ? 0 : 56;
+        for (int file = 0; file < 8; file++) {
+            Piece p = board.getPieceAt(home + file);
+            if (p == null || p.getColor() != color) continue;
+            if (p instanceof King) {
+                ((King) p).setHasMoved(!(file == 4 && (kingside | queenside) != 0));
+            } else if (p instanceof Rook) {
+                boolean right = (file == 7 && kingside != 0) || (file == 0 && queenside != 0);
+                ((Rook) p).setHasMoved(!right);
+            }
+        }
+    }
+
+    private static IllegalArgumentException malformed(String field, CharSequence fen) {
+        return new IllegalArgumentException("Bad FEN " + field + ": " + fen);
+    }
+
+    private static int skipSpaces(CharSequence s, int pos, int end) {
+        while (pos < end && isSpace(s.charAt(pos))) pos++;
+        return pos;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
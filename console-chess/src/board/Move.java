@@ -5,8 +5,21 @@ import enums.PieceType;
 /**
  * Represents a chess move from one square to another.
  * Optionally includes promotion information for pawn promotion moves.
+ * Moves are immutable; {@link #of(Square, Square)} hands out one shared instance per
+ * from/to pair so move lists built from the object API do not allocate a Move per entry.
  */
 public class Move {
+    /** Shared moves without promotion, indexed by from * 64 + to. */
+    private static final Move[] MOVES = new Move[64 * 64];
+
+    static {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                MOVES[from * 64 + to] = new Move(Square.of(from), Square.of(to), null);
+            }
+        }
+    }
+
     private final Square from;
     private final Square to;
     private final PieceType promotion;
@@ -32,6 +45,28 @@ public class Move {
         this.promotion = promotion;
     }
 
+    /**
+     * Gets the move between two squares, without promotion.
+     * @param from The starting square
+     * @param to The destination square
+     * @return The shared Move instance
+     */
+    public static Move of(Square from, Square to) {
+        return MOVES[from.getIndex() * 64 + to.getIndex()];
+    }
+
+    /**
+     * Gets the move between two squares with optional promotion.
+     * Moves without promotion are shared; promotions are created on each call.
+     * @param from The starting square
+     * @param to The destination square
+     * @param promotion The piece type to promote to (null if not a promotion)
+     * @return The Move
+     */
+    public static Move of(Square from, Square to, PieceType promotion) {
+        return promotion == null ? of(from, to) : new Move(from, to, promotion);
+    }
+
     /**
      * Gets the starting square of the move.
      * @return The source square
@@ -56,4 +91,16 @@ public class Move {
         return promotion;
     }
 
+    /**
+     * Converts this move to coordinate notation (e.g., "e2e4", "e7e8q").
+     * @return The move as from-square, to-square and optional lowercase promotion letter
+     */
+    @Override
+    public String toString() {
+        String s = "" + from + to;
+        if (promotion != null) {
+            s += Character.toLowerCase(promotion.getSymbol());
+        }
+        return s;
+    }
 }
@@ -0,0 +1,247 @@
+package board;
+
+import enums.Color;
+import enums.PieceType;
+import java.util.List;
+
+/**
+ * Generates fully legal moves for one side directly from the board's bitboards.
+ * Checking pieces and pinned pieces are computed once per position, so no move
+ * has to be tried on the board to see whether it leaves the king in check.
+ * Covers check evasions (king moves, captures of the checker and blocks),
+ * pinned pieces, en passant discovered checks and castling through attacked squares.
+ */
+public final class MoveGenerator {
+    private static final PieceType[] PROMOTIONS = {
+            PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT
+    };
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private MoveGenerator() {}
+
+    /**
+     * Generates every legal move for a side as Move objects.
+     * Promotions are emitted once per promotion piece.
+     *
+     * @param board The current board state
+     * @param color The side to move
+     * @return List of all legal moves (empty on checkmate or stalemate)
+     */
+    public static List<Move> generateLegalMoves(Board board, Color color) {
+        MoveList moves = new MoveList();
+        generateLegalMoves(board, color, moves);
+        return moves.toMoves();
+    }
+
+    /**
+     * Generates every legal move for a side into a reusable list of packed moves.
+     * The list is cleared first; nothing is allocated.
+     *
+     * @param board The current board state
+     * @param color The side to move
+     * @param moves The list to fill
+     */
+    public static void generateLegalMoves(Board board, Color color, MoveList moves) {
+        moves.clear();
+        BitboardPosition bb = board.getBitboards();
+        Color them = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        int king = bb.getKingSquare(color);
+        if (king < 0) return;
+
+        long ours = bb.getOccupancy(color);
+        long theirs = bb.getOccupancy(them);
+        long occupied = ours | theirs;
+        long checkers = bb.attackersOf(king, them, occupied);
+
+        // King moves: lift the king off the board so sliders see through its current square
+        long withoutKing = occupied & ~(1L << king);
+        long kingTargets = Attacks.king(king) & ~ours;
+        while (kingTargets != 0) {
+            int to = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if (bb.attackersOf(to, them, withoutKing) == 0) {
+                moves.add(PackedMove.encode(king, to, null, captureFlag(theirs, to)));
+            }
+        }
+
+        // Double check: only the king may move
+        int checkCount = Long.bitCount(checkers);
+        if (checkCount > 1) return;
+
+        // Other pieces must capture the checker or block the checking ray
+        long checkMask = (checkCount == 0)
+                ? -1L
+                : checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+        long pinned = pinnedPieces(bb, king, them, ours, occupied);
+        long targetMask = ~ours & checkMask;
+
+        long knights = bb.getPieces(color, PieceType.KNIGHT) & ~pinned;
+        while (knights != 0) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            addAll(moves, from, Attacks.knight(from) & targetMask, theirs);
+        }
+
+        long diagonal = bb.getPieces(color, PieceType.BISHOP) | bb.getPieces(color, PieceType.QUEEN);
+        while (diagonal != 0) {
+            int from = Long.numberOfTrailingZeros(diagonal);
+            diagonal &= diagonal - 1;
+            long targets = Attacks.bishop(from, occupied) & targetMask;
+            if ((pinned & (1L << from)) != 0) targets &= Attacks.line(king, from);
+            addAll(moves, from, targets, theirs);
+        }
+
+        long straight = bb.getPieces(color, PieceType.ROOK) | bb.getPieces(color, PieceType.QUEEN);
+        while (straight != 0) {
+            int from = Long.numberOfTrailingZeros(straight);
+            straight &= straight - 1;
+            long targets = Attacks.rook(from, occupied) & targetMask;
+            if ((pinned & (1L << from)) != 0) targets &= Attacks.line(king, from);
+            addAll(moves, from, targets, theirs);
+        }
+
+        generatePawnMoves(board, bb, moves, color, them, king, theirs, occupied, checkMask, pinned);
+
+        if (checkCount == 0) {
+            generateCastling(board, bb, moves, color, them, king, occupied);
+        }
+    }
+
+    /**
+     * Checks if a side's king is currently attacked.
+     *
+     * @param board The current board state
+     * @param color The side whose king is tested
+     * @return true if the king of the given color is in check
+     */
+    public static boolean isInCheck(Board board, Color color) {
+        BitboardPosition bb = board.getBitboards();
+        int king = bb.getKingSquare(color);
+        Color them = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        return king >= 0 && bb.isSquareAttacked(king, them);
+    }
+
+    /**
+     * Finds the pieces of the moving side that are pinned to their king.
+     * A piece is pinned when it is the only piece between its king and an enemy
+     * slider that would otherwise attack the king along that line.
+     */
+    private static long pinnedPieces(BitboardPosition bb, int king, Color them, long ours, long occupied) {
+        long theirs = bb.getOccupancy(them);
+        long queens = bb.getPieces(them, PieceType.QUEEN);
+        long snipers = (Attacks.rook(king, theirs) & (bb.getPieces(them, PieceType.ROOK) | queens))
+                | (Attacks.bishop(king, theirs) & (bb.getPieces(them, PieceType.BISHOP) | queens));
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(king, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & ours) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * Generates pushes, captures, promotions and en passant captures for all pawns.
+     */
+    private static void generatePawnMoves(Board board, BitboardPosition bb, MoveList moves,
+                                          Color us, Color them, int king, long theirs,
+                                          long occupied, long checkMask, long pinned) {
+        int forward = (us == Color.WHITE) ? 8 : -8;
+        int startRank = (us == Color.WHITE) ? 1 : 6;
+        int enPassant = board.getEnPassantSquare();
+
+        long pawns = bb.getPieces(us, PieceType.PAWN);
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = checkMask;
+            if ((pinned & (1L << from)) != 0) allowed &= Attacks.line(king, from);
+
+            int one = from + forward;
+            if ((occupied & (1L << one)) == 0) {
+                if ((allowed & (1L << one)) != 0) addPawnMove(moves, from, one, 0);
+                int two = one + forward;
+                if ((from >>> 3) == startRank && (occupied & (1L << two)) == 0 && (allowed & (1L << two)) != 0) {
+                    moves.add(PackedMove.encode(from, two, null, PackedMove.FLAG_DOUBLE_PUSH));
+                }
+            }
+
+            long attacks = Attacks.pawn(us, from);
+            long captures = attacks & theirs & allowed;
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                addPawnMove(moves, from, to, PackedMove.FLAG_CAPTURE);
+            }
+
+            if (enPassant >= 0 && (attacks & (1L << enPassant)) != 0) {
+                int capturedSquare = enPassant - forward;
+                long capturedBit = 1L << capturedSquare;
+                if ((bb.getPieces(them, PieceType.PAWN) & capturedBit) == 0) continue;
+                // Both pawns leave their squares at once, which can expose the king along a rank
+                long after = (occupied ^ (1L << from) ^ capturedBit) | (1L << enPassant);
+                if ((bb.attackersOf(king, them, after) & ~capturedBit) == 0) {
+                    moves.add(PackedMove.encode(from, enPassant, null, PackedMove.FLAG_EN_PASSANT));
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates castling moves; only called when the king is not in check.
+     * The squares between king and rook must be empty, and the squares the
+     * king crosses and lands on must not be attacked.
+     */
+    private static void generateCastling(Board board, BitboardPosition bb, MoveList moves,
+                                         Color us, Color them, int king, long occupied) {
+        if (board.canCastle(us, true)
+                && (occupied & ((1L << (king + 1)) | (1L << (king + 2)))) == 0
+                && !bb.isSquareAttacked(king + 1, them)
+                && !bb.isSquareAttacked(king + 2, them)) {
+            moves.add(PackedMove.encode(king, king + 2, null, PackedMove.FLAG_CASTLE));
+        }
+        if (board.canCastle(us, false)
+                && (occupied & ((1L << (king - 1)) | (1L << (king - 2)) | (1L << (king - 3)))) == 0
+                && !bb.isSquareAttacked(king - 1, them)
+                && !bb.isSquareAttacked(king - 2, them)) {
+            moves.add(PackedMove.encode(king, king - 2, null, PackedMove.FLAG_CASTLE));
+        }
+    }
+
+    /**
+     * Adds a pawn move, expanding it into the four promotions on the last rank.
+     */
+    private static void addPawnMove(MoveList moves, int from, int to, int flags) {
+        int rank = to >>> 3;
+        if (rank == 0 || rank == 7) {
+            for (PieceType promotion : PROMOTIONS) {
+                moves.add(PackedMove.encode(from, to, promotion, flags));
+            }
+        } else {
+            moves.add(PackedMove.encode(from, to, null, flags));
+        }
+    }
+
+    /**
+     * Adds one move from a square to every square in a target set.
+     */
+    private static void addAll(MoveList moves, int from, long targets, long theirs) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(PackedMove.encode(from, to, null, captureFlag(theirs, to)));
+        }
+    }
+
+    /**
+     * Gets the capture flag for a move landing on a square.
+     */
+    private static int captureFlag(long theirs, int to) {
+        return ((theirs & (1L << to)) != 0) ? PackedMove.FLAG_CAPTURE : 0;
+    }
+}
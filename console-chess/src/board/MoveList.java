@@ -0,0 +1,112 @@
+package board;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable list of packed moves backed by an {@code int[]}.
+ * Move generators fill it in place, so the same list can be cleared and
+ * refilled at every node of a search without allocating.
+ */
+public final class MoveList {
+    /** Upper bound on the number of legal moves in any chess position. */
+    public static final int MAX_MOVES = 256;
+
+    private int[] moves;
+    private int size;
+
+    /**
+     * Creates an empty move list large enough for any position.
+     */
+    public MoveList() {
+        this.moves = new int[MAX_MOVES];
+    }
+
+    /**
+     * Appends a packed move.
+     * @param move The packed move to add
+     */
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * Gets the packed move at a position.
+     * @param index Position in the list, 0 to size() - 1
+     * @return The packed move
+     */
+    public int get(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Replaces the packed move at a position.
+     * @param index Position in the list, 0 to size() - 1
+     * @param move The packed move to store
+     */
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    /**
+     * Swaps two entries (used when ordering moves).
+     * @param i First position
+     * @param j Second position
+     */
+    public void swap(int i, int j) {
+        int tmp = moves[i];
+        moves[i] = moves[j];
+        moves[j] = tmp;
+    }
+
+    /**
+     * Gets the number of moves in the list.
+     * @return The list size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the list holds no moves.
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every move, keeping the backing array for reuse.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Finds the position of a packed move.
+     * @param move The packed move to look for
+     * @return Its index, or -1 if it is not in the list
+     */
+    public int indexOf(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Converts the list into Move objects for the CLI and PGN layers.
+     * @return A new list of Moves in the same order
+     */
+    public List<Move> toMoves() {
+        List<Move> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(PackedMove.toMove(moves[i]));
+        }
+        return result;
+    }
+}
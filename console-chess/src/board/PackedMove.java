@@ -0,0 +1,139 @@
+package board;
+
+import enums.PieceType;
+
+/**
+ * Primitive move encoding: a whole move packed into one {@code int}.
+ * Used by move generation and search so that generating moves allocates nothing.
+ * {@link Move} stays the object form used by the CLI and PGN layers.
+ *
+ * Layout (low to high bits):
+ *   0-5   from square index (rank * 8 + file)
+ *   6-11  to square index
+ *   12-14 promotion piece (0 = none, otherwise PieceType ordinal + 1)
+ *   15-18 flags (capture, en passant, castling, double pawn push)
+ */
+public final class PackedMove {
+    /** Value that never encodes a real move. */
+    public static final int NONE = 0;
+
+    public static final int FLAG_CAPTURE = 1 << 15;
+    public static final int FLAG_EN_PASSANT = 1 << 16;
+    public static final int FLAG_CASTLE = 1 << 17;
+    public static final int FLAG_DOUBLE_PUSH = 1 << 18;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private PackedMove() {}
+
+    /**
+     * Packs a move into an int.
+     * @param from The starting square index
+     * @param to The destination square index
+     * @param promotion The promotion piece type, or null
+     * @param flags Any combination of the FLAG_ constants
+     * @return The packed move
+     */
+    public static int encode(int from, int to, PieceType promotion, int flags) {
+        int promo = (promotion == null) ? 0 : promotion.ordinal() + 1;
+        return from | (to << 6) | (promo << 12) | flags;
+    }
+
+    /**
+     * Gets the starting square index.
+     * @param move The packed move
+     * @return Square index 0-63
+     */
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    /**
+     * Gets the destination square index.
+     * @param move The packed move
+     * @return Square index 0-63
+     */
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * Gets the promotion piece type.
+     * @param move The packed move
+     * @return The piece type to promote to, or null if not a promotion
+     */
+    public static PieceType promotion(int move) {
+        int promo = (move >>> 12) & 0x7;
+        return promo == 0 ? null : TYPES[promo - 1];
+    }
+
+    /**
+     * Checks if the move captures a piece (including en passant).
+     * @param move The packed move
+     * @return true for captures
+     */
+    public static boolean isCapture(int move) {
+        return (move & (FLAG_CAPTURE | FLAG_EN_PASSANT)) != 0;
+    }
+
+    /**
+     * Checks if the move is an en passant capture.
+     * @param move The packed move
+     * @return true for en passant
+     */
+    public static boolean isEnPassant(int move) {
+        return (move & FLAG_EN_PASSANT) != 0;
+    }
+
+    /**
+     * Checks if the move is castling (the king's two-square move).
+     * @param move The packed move
+     * @return true for castling
+     */
+    public static boolean isCastle(int move) {
+        return (move & FLAG_CASTLE) != 0;
+    }
+
+    /**
+     * Checks if the move is a pawn's two-square advance.
+     * @param move The packed move
+     * @return true for double pawn pushes
+     */
+    public static boolean isDoublePush(int move) {
+        return (move & FLAG_DOUBLE_PUSH) != 0;
+    }
+
+    /**
+     * Checks if the move promotes a pawn.
+     * @param move The packed move
+     * @return true for promotions
+     */
+    public static boolean isPromotion(int move) {
+        return (move & (0x7 << 12)) != 0;
+    }
+
+    /**
+     * Converts a packed move into a Move object.
+     * @param move The packed move
+     * @return The equivalent Move, or null for {@link #NONE}
+     */
+    public static Move toMove(int move) {
+        if (move == NONE) return null;
+        int from = from(move);
+        int to = to(move);
+        return Move.of(Square.of(from), Square.of(to), promotion(move));
+    }
+
+    /**
+     * Converts a packed move to coordinate notation (e.g., "e2e4", "e7e8q").
+     * @param move The packed move
+     * @return The move in coordinate notation, or "0000" for {@link #NONE}
+     */
+    public static String toString(int move) {
+        if (move == NONE) return "0000";
+        return toMove(move).toString();
+    }
+}
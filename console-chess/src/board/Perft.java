@@ -0,0 +1,206 @@
+package board;
+
+import enums.Color;
+import java.io.PrintStream;
+
+/**
+ * Performance test (perft) for move generation.
+ * Counts the leaf nodes of the legal move tree to a fixed depth, which both
+ * validates the move generator against known reference counts and measures
+ * its speed in nodes per second.
+ */
+public final class Perft {
+
+    /**
+     * A reference position together with its known perft node counts.
+     */
+    public static final class Position {
+        private final String name;
+        private final String fen;
+        private final long[] expected;
+
+        /**
+         * Creates a reference position.
+         * @param name A short descriptive name
+         * @param fen The position in FEN
+         * @param expected Known node counts, where expected[i] is the count at depth i + 1
+         */
+        public Position(String name, String fen, long... expected) {
+            this.name = name;
+            this.fen = fen;
+            this.expected = expected;
+        }
+
+        /**
+         * Gets the descriptive name of the position.
+         * @return The name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the position in FEN.
+         * @return The FEN string
+         */
+        public String getFen() {
+            return fen;
+        }
+
+        /**
+         * Gets the deepest depth with a known node count.
+         * @return The maximum depth
+         */
+        public int getMaxDepth() {
+            return expected.length;
+        }
+
+        /**
+         * Gets the known node count at a depth.
+         * @param depth The depth, from 1 to {@link #getMaxDepth()}
+         * @return The expected number of leaf nodes
+         */
+        public long getExpected(int depth) {
+            return expected[depth - 1];
+        }
+    }
+
+    /**
+     * Standard reference positions with published node counts.
+     */
+    public static final Position[] REFERENCE_POSITIONS = {
+            new Position("Initial position", Fen.START_POSITION,
+                    20L, 400L, 8902L, 197281L, 4865609L, 119060324L),
+            new Position("Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48L, 2039L, 97862L, 4085603L, 193690690L),
+            new Position("En passant and pins", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14L, 191L, 2812L, 43238L, 674624L, 11030083L),
+            new Position("Promotions and castling", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6L, 264L, 9467L, 422333L, 15833292L),
+            new Position("Promotion to check", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44L, 1486L, 62379L, 2103487L, 89941194L),
+            new Position("Underpromotions", "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+                    24L, 496L, 9483L, 182838L, 3605103L),
+            new Position("Illegal en passant (pin)", "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1",
+                    18L, 92L, 1670L, 10138L, 185429L, 1134888L),
+            new Position("En passant gives check", "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1",
+                    15L, 126L, 1928L, 13931L, 206379L, 1440467L),
+    };
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private Perft() {}
+
+    /**
+     * Counts the leaf nodes of the legal move tree.
+     * The board is restored to its original state afterwards.
+     *
+     * @param board The position to search
+     * @param color The side to move
+     * @param depth The number of plies to expand
+     * @return The number of leaf nodes at the given depth
+     */
+    public static long perft(Board board, Color color, int depth) {
+        if (depth <= 0) return 1;
+        MoveList[] lists = new MoveList[depth + 1];
+        for (int i = 0; i <= depth; i++) {
+            lists[i] = new MoveList();
+        }
+        return perft(board, color, depth, lists);
+    }
+
+    /**
+     * Recursive perft using one preallocated move list per remaining depth.
+     */
+    private static long perft(Board board, Color color, int depth, MoveList[] lists) {
+        MoveList moves = lists[depth];
+        MoveGenerator.generateLegalMoves(board, color, moves);
+        if (depth == 1) return moves.size();
+
+        Color next = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += perft(board, next, depth - 1, lists);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Runs perft and prints the node count below every root move ("divide"),
+     * followed by the total, elapsed time and nodes per second.
+     *
+     * @param board The position to search
+     * @param color The side to move
+     * @param depth The number of plies to expand (at least 1)
+     * @param out Where to print the results
+     * @return The total number of leaf nodes
+     */
+    public static long divide(Board board, Color color, int depth, PrintStream out) {
+        Color next = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        long start = System.nanoTime();
+        long total = 0;
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(board, color, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            long nodes = perft(board, next, depth - 1);
+            board.unmakeMove();
+            out.println(PackedMove.toString(move) + ": " + nodes);
+            total += nodes;
+        }
+        long elapsed = System.nanoTime() - start;
+        out.println();
+        out.println("Nodes: " + total);
+        printSpeed(out, total, elapsed);
+        return total;
+    }
+
+    /**
+     * Runs every reference position up to a depth and compares the node counts
+     * with the published values, printing each result and the speed.
+     *
+     * @param maxDepth The deepest depth to run (positions with fewer known counts stop earlier)
+     * @param out Where to print the results
+     * @return true if every count matched
+     */
+    public static boolean runSuite(int maxDepth, PrintStream out) {
+        boolean allPassed = true;
+        long totalNodes = 0;
+        long totalTime = 0;
+        Board board = new Board();
+        for (Position position : REFERENCE_POSITIONS) {
+            Color toMove = Fen.load(board, position.getFen());
+            out.println(position.getName() + "  [" + position.getFen() + "]");
+            int depthLimit = Math.min(maxDepth, position.getMaxDepth());
+            for (int depth = 1; depth <= depthLimit; depth++) {
+                long start = System.nanoTime();
+                long nodes = perft(board, toMove, depth);
+                long elapsed = System.nanoTime() - start;
+                totalNodes += nodes;
+                totalTime += elapsed;
+                long expected = position.getExpected(depth);
+                boolean ok = nodes == expected;
+                allPassed &= ok;
+                out.printf("  depth %d: %,15d  %s%n", depth, nodes,
+                        ok ? "ok" : "FAILED (expected " + expected + ")");
+            }
+        }
+        out.println();
+        out.println(allPassed ? "All perft counts match." : "Perft MISMATCH found.");
+        printSpeed(out, totalNodes, totalTime);
+        return allPassed;
+    }
+
+    /**
+     * Prints elapsed time and nodes per second.
+     */
+    private static void printSpeed(PrintStream out, long nodes, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long nps = seconds > 0 ? (long) (nodes / seconds) : 0;
+        out.printf("Time: %.3f s   Speed: %,d nodes/s%n", seconds, nps);
+    }
+}
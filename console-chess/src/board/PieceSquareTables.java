@@ -0,0 +1,163 @@
+package board;
+
+import enums.Color;
+import enums.PieceType;
+
+/**
+ * Material and piece-square values for the middlegame and the endgame.
+ * Each entry is the value of a piece standing on a square, material included, signed
+ * so that White pieces count positive and Black pieces negative. The board keeps the sums
+ * up to date as pieces are placed and removed, so the evaluator reads them without
+ * visiting the pieces. The game phase weight of the pieces is kept the same way.
+ *
+ * The tables below are written from White's point of view with rank 8 on top;
+ * Black uses the same tables mirrored vertically.
+ */
+public final class PieceSquareTables {
+    /** Phase of a position with all minor and major pieces on the board. */
+    public static final int MAX_PHASE = 24;
+
+    /** Material in the middlegame and the endgame, in PieceType order (king, queen, rook, bishop, knight, pawn). */
+    private static final int[] MG_MATERIAL = {0, 1025, 477, 365, 337, 82};
+    private static final int[] EG_MATERIAL = {0, 936, 512, 297, 281, 94};
+    /** Contribution of each piece type to the game phase, in PieceType order. */
+    private static final int[] PHASE = {0, 4, 2, 1, 1, 0};
+
+    private static final int[] KING_MG = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20
+    };
+    private static final int[] KING_EG = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10,   0,   0, -10, -20, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -30,   0,   0,   0,   0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,   5,   5,   5,   0, -10,
+             -5,   0,   5,   5,   5,   5,   0,  -5,
+              0,   0,   5,   5,   5,   5,   0,  -5,
+            -10,   5,   5,   5,   5,   5,   0, -10,
+            -10,   0,   5,   0,   0,   0,   0, -10,
+            -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+    private static final int[] ROOK = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+              5,  10,  10,  10,  10,  10,  10,   5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+              0,   0,   0,   5,   5,   0,   0,   0
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,  10,  10,   5,   0, -10,
+            -10,   5,   5,  10,  10,   5,   5, -10,
+            -10,   0,  10,  10,  10,  10,   0, -10,
+            -10,  10,  10,  10,  10,  10,  10, -10,
+            -10,   5,   0,   0,   0,   0,   5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20,   0,   0,   0,   0, -20, -40,
+            -30,   0,  10,  15,  15,  10,   0, -30,
+            -30,   5,  15,  20,  20,  15,   5, -30,
+            -30,   0,  15,  20,  20,  15,   0, -30,
+            -30,   5,  10,  15,  15,  10,   5, -30,
+            -40, -20,   0,   5,   5,   0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] PAWN_MG = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             10,  10,  20,  30,  30,  20,  10,  10,
+              5,   5,  10,  25,  25,  10,   5,   5,
+              0,   0,   0,  20,  20,   0,   0,   0,
+              5,  -5, -10,   0,   0, -10,  -5,   5,
+              5,  10,  10, -20, -20,  10,  10,   5,
+              0,   0,   0,   0,   0,   0,   0,   0
+    };
+    private static final int[] PAWN_EG = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             80,  80,  80,  80,  80,  80,  80,  80,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             30,  30,  30,  30,  30,  30,  30,  30,
+             15,  15,  15,  15,  15,  15,  15,  15,
+              5,   5,   5,   5,   5,   5,   5,   5,
+              0,   0,   0,   0,   0,   0,   0,   0,
+              0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    /** Signed values indexed by BitboardPosition.pieceIndex * 64 + square. */
+    private static final int[] MG = new int[12 * 64];
+    private static final int[] EG = new int[12 * 64];
+
+    static {
+        int[][] mg = {KING_MG, QUEEN, ROOK, BISHOP, KNIGHT, PAWN_MG};
+        int[][] eg = {KING_EG, QUEEN, ROOK, BISHOP, KNIGHT, PAWN_EG};
+        for (PieceType type : PieceType.values()) {
+            int t = type.ordinal();
+            for (int sq = 0; sq < 64; sq++) {
+                // Row 0 of a table is rank 8 for White; Black reads it the other way up
+                int white = BitboardPosition.pieceIndex(Color.WHITE, type) * 64 + sq;
+                int black = BitboardPosition.pieceIndex(Color.BLACK, type) * 64 + sq;
+                MG[white] = MG_MATERIAL[t] + mg[t][sq ^ 56];
+                EG[white] = EG_MATERIAL[t] + eg[t][sq ^ 56];
+                MG[black] = -(MG_MATERIAL[t] + mg[t][sq]);
+                EG[black] = -(EG_MATERIAL[t] + eg[t][sq]);
+            }
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private PieceSquareTables() {}
+
+    /**
+     * Gets the middlegame value of a piece on a square.
+     * @param color The piece color
+     * @param type The piece type
+     * @param square The square index
+     * @return The value in centipawns, positive for White and negative for Black
+     */
+    public static int middlegame(Color color, PieceType type, int square) {
+        return MG[BitboardPosition.pieceIndex(color, type) * 64 + square];
+    }
+
+    /**
+     * Gets the endgame value of a piece on a square.
+     * @param color The piece color
+     * @param type The piece type
+     * @param square The square index
+     * @return The value in centipawns, positive for White and negative for Black
+     */
+    public static int endgame(Color color, PieceType type, int square) {
+        return EG[BitboardPosition.pieceIndex(color, type) * 64 + square];
+    }
+
+    /**
+     * Gets how much a piece type counts towards the game phase.
+     * @param type The piece type
+     * @return 4 for a queen, 2 for a rook, 1 for a minor piece, 0 otherwise
+     */
+    public static int phase(PieceType type) {
+        return PHASE[type.ordinal()];
+    }
+}
@@ -3,21 +3,74 @@ package board;
 /**
  * Represents a square on the chess board.
  * Uses file (column a-h = 0-7) and rank (row 1-8 = 0-7) coordinates.
+ * There is exactly one instance per square, obtained with {@link #of(int, int)} or {@link #of(int)},
+ * so looking up a square never allocates and squares can be compared with ==.
  */
-public class Square {
+public final class Square {
+    private static final Square[] SQUARES = new Square[64];
+
+    static {
+        for (int index = 0; index < 64; index++) {
+            SQUARES[index] = new Square(index & 7, index >>> 3);
+        }
+    }
+
     private final int file;  // 0–7 for a–h
     private final int rank;  // 0–7 for 1–8
 
     /**
-     * Creates a new Square with the specified file and rank.
+     * Creates the square with the specified file and rank; only used to fill the table.
      * @param file The file (column) index, 0-7 corresponding to a-h
      * @param rank The rank (row) index, 0-7 corresponding to 1-8
      */
-    public Square(int file, int rank) {
+    private Square(int file, int rank) {
         this.file = file;
         this.rank = rank;
     }
 
+    /**
+     * Gets the square with the specified file and rank.
+     * @param file The file (column) index, 0-7 corresponding to a-h
+     * @param rank The rank (row) index, 0-7 corresponding to 1-8
+     * @return The shared Square instance
+     * @throws IllegalArgumentException if the file or rank is off the board
+     */
+    public static Square of(int file, int rank) {
+        if ((file | rank) >>> 3 != 0) {
+            throw new IllegalArgumentException("Square off the board: file " + file + ", rank " + rank);
+        }
+        return SQUARES[rank * 8 + file];
+    }
+
+    /**
+     * Gets the square with the specified index.
+     * @param index The square index, rank * 8 + file (a1 = 0, h8 = 63)
+     * @return The shared Square instance
+     * @throws IllegalArgumentException if the index is not in 0-63
+     */
+    public static Square of(int index) {
+        if (index >>> 6 != 0) throw new IllegalArgumentException("Square index off the board: " + index);
+        return SQUARES[index];
+    }
+
+    /**
+     * Checks whether a file and rank lie on the board.
+     * @param file The file index
+     * @param rank The rank index
+     * @return true if both are in 0-7
+     */
+    public static boolean isValid(int file, int rank) {
+        return (file | rank) >>> 3 == 0;
+    }
+
+    /**
+     * Gets the index of this square.
+     * @return rank * 8 + file, in 0-63
+     */
+    public int getIndex() {
+        return rank * 8 + file;
+    }
+
     /**
      * Gets the file (column) index of this square.
      * @return File index (0-7 for a-h)
@@ -37,7 +90,7 @@ public class Square {
     /**
      * Parses a square from algebraic notation string (e.g., "e4", "a1").
      * @param s The algebraic notation string (2 characters: file letter + rank number)
-     * @return The corresponding Square object, or null if invalid input
+     * @return The shared Square instance, or null if invalid input
      */
     public static Square fromString(String s) {
         if (s == null || s.length() != 2) return null;
@@ -50,7 +103,7 @@ public class Square {
 
         if (file < 0 || file > 7 || rank < 0 || rank > 7) return null;
 
-        return new Square(file, rank);
+        return SQUARES[rank * 8 + file];
     }
 
     /**
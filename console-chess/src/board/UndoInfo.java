@@ -0,0 +1,52 @@
+package board;
+
+import enums.Color;
+import pieces.Piece;
+
+/**
+ * Record of everything needed to take back one move made with {@link Board#makeMove(int)}.
+ * Squares are stored as indices and moves in their packed form.
+ * Instances live in the board's undo stack and are reused from move to move,
+ * so making and unmaking moves does not allocate once the stack has grown.
+ */
+final class UndoInfo {
+    int move;
+    Piece moved;
+    boolean movedHadMoved;
+    Piece captured;
+    int capturedSquare;
+    /** The piece the pawn became, handed back to the board's spares when the move is taken back. */
+    Piece promoted;
+    Piece rook;
+    int rookFrom;
+    int rookTo;
+    boolean rookHadMoved;
+    int previousLastMove;
+    int previousCastlingRights;
+    int previousEnPassantSquare;
+    Color previousSideToMove;
+    long previousKey;
+    int previousHalfmoveClock;
+
+    /**
+     * Drops references held from a previous move so the record can be refilled.
+     */
+    void reset() {
+        move = PackedMove.NONE;
+        moved = null;
+        movedHadMoved = false;
+        captured = null;
+        capturedSquare = 0;
+        promoted = null;
+        rook = null;
+        rookFrom = 0;
+        rookTo = 0;
+        rookHadMoved = false;
+        previousLastMove = PackedMove.NONE;
+        previousCastlingRights = 0;
+        previousEnPassantSquare = -1;
+        previousSideToMove = null;
+        previousKey = 0L;
+        previousHalfmoveClock = 0;
+    }
+}
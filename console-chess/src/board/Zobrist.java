@@ -0,0 +1,103 @@
+package board;
+
+import enums.Color;
+import enums.PieceType;
+
+/**
+ * Random keys for Zobrist hashing of board positions.
+ * A position's key is the XOR of one key per piece on its square, plus keys for
+ * black to move, the castling rights and the en passant file.
+ * The keys come from a fixed-seed generator, so a position hashes to the same
+ * value in every run and keys can be stored on disk.
+ */
+public final class Zobrist {
+    private static final long[] PIECE_SQUARE = new long[12 * 64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            seed = nextSeed(seed);
+            PIECE_SQUARE[i] = mix(seed);
+        }
+        // Each castling right gets its own key; a rights set hashes to the XOR of its members
+        long[] rights = new long[4];
+        for (int i = 0; i < rights.length; i++) {
+            seed = nextSeed(seed);
+            rights[i] = mix(seed);
+        }
+        for (int mask = 0; mask < CASTLING.length; mask++) {
+            long key = 0L;
+            for (int i = 0; i < rights.length; i++) {
+                if ((mask & (1 << i)) != 0) key ^= rights[i];
+            }
+            CASTLING[mask] = key;
+        }
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) {
+            seed = nextSeed(seed);
+            EN_PASSANT_FILE[i] = mix(seed);
+        }
+        seed = nextSeed(seed);
+        BLACK_TO_MOVE = mix(seed);
+    }
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private Zobrist() {}
+
+    /**
+     * Gets the key of a piece standing on a square.
+     * @param color The piece color
+     * @param type The piece type
+     * @param square The square index
+     * @return The piece-square key
+     */
+    public static long piece(Color color, PieceType type, int square) {
+        return PIECE_SQUARE[BitboardPosition.pieceIndex(color, type) * 64 + square];
+    }
+
+    /**
+     * Gets the key of a set of castling rights.
+     * @param rights Bit mask of Board.CASTLE_* flags
+     * @return The castling key
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights & 0xF];
+    }
+
+    /**
+     * Gets the key of an en passant file.
+     * @param file The file (0-7) of the en passant square
+     * @return The en passant key
+     */
+    public static long enPassant(int file) {
+        return EN_PASSANT_FILE[file];
+    }
+
+    /**
+     * Gets the key toggled when black is to move.
+     * @return The side-to-move key
+     */
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+
+    /**
+     * Advances the SplitMix64 state.
+     */
+    private static long nextSeed(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * SplitMix64 output function.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -44,7 +44,7 @@ public final class BoardPrinter {
                 boolean lightSquare = (rank + file) % 2 == 0;
                 String bg = lightSquare ? WHITE_BG : BLACK_BG;
 
-                Square square = new Square(file, rank);
+                Square square = Square.of(file, rank);
                 Piece piece = board.getPieceAt(square);
 
                 if (piece == null) {
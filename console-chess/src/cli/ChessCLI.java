@@ -1,18 +1,27 @@
 package cli;
 
 import board.Board;
+import board.Fen;
 import board.Move;
+import board.PackedMove;
+import engine.PolyglotBook;
+import engine.Search;
+import engine.SearchLimits;
+import engine.SearchResult;
 import enums.Color;
 import game.Game;
-import game.Game.GameState;
 import input.MoveParser;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import pgn.OpeningTree;
 import pgn.PGNExporter;
+import pgn.PGNGame;
 import pgn.PGNParser;
+import pgn.PGNReader;
 import timer.GameTimer;
 
 /**
@@ -20,10 +29,19 @@ import timer.GameTimer;
  * Handles user interaction, menu navigation, game display, and input processing.
  */
 public class ChessCLI {
+    /** Thinking time per move for the computer player. */
+    private static final long COMPUTER_THINK_MILLIS = 2000;
+    /** Number of moves shown by the opening explorer. */
+    private static final int EXPLORER_MOVES = 6;
 
     private final Scanner scanner = new Scanner(System.in);
     private Game game;
     private GameTimer timer;
+    private Color computerColor;
+    private Search engine;
+    private OpeningTree openingTree;
+    private PolyglotBook book;
+    private boolean showExplorer;
 
     /**
      * Starts the chess CLI application.
@@ -35,7 +53,7 @@ public class ChessCLI {
 
     /**
      * Displays and handles the main menu.
-     * Options: New Game, Load Game, Exit
+     * Options: New Game, Play vs Computer, Load Game, Set Up Position, Exit
      */
     private void showMainMenu() {
         while (true) {
@@ -43,8 +61,10 @@ public class ChessCLI {
             printBox("CONSOLE CHESS", 50);
             System.out.println();
             printMenuOption("1", "New Game");
-            printMenuOption("2", "Load Game");
-            printMenuOption("3", "Exit");
+            printMenuOption("2", "Play vs Computer");
+            printMenuOption("3", "Load Game");
+            printMenuOption("4", "Set Up Position (FEN)");
+            printMenuOption("5", "Exit");
             System.out.println();
             printSeparator(50);
             System.out.print("  > ");
@@ -53,8 +73,10 @@ public class ChessCLI {
 
             switch (choice) {
                 case "1" -> startNewGame();
-                case "2" -> loadGame();
-                case "3" -> {
+                case "2" -> startComputerGame();
+                case "3" -> loadGame();
+                case "4" -> setUpPosition();
+                case "5" -> {
                     System.out.println("\n  Thanks for playing!");
                     return;
                 }
@@ -71,14 +93,86 @@ public class ChessCLI {
      */
     private void startNewGame() {
         game = new Game();
+        computerColor = null;
         timer = new GameTimer(10);
         timer.start();
         gameLoop();
     }
 
+    /**
+     * Starts a two-player game from a position entered in FEN.
+     */
+    private void setUpPosition() {
+        clearScreen();
+        printBox("SET UP POSITION", 50);
+        System.out.println();
+        System.out.print("  Enter FEN: ");
+        String fen = scanner.nextLine().trim();
+
+        if (fen.isEmpty()) {
+            System.out.println("\n  No FEN entered.");
+            pause();
+            return;
+        }
+
+        try {
+            game = new Game(fen);
+        } catch (IllegalArgumentException e) {
+            System.out.println("\n  " + e.getMessage());
+            pause();
+            return;
+        }
+        computerColor = null;
+        timer = new GameTimer(10);
+        timer.start();
+        gameLoop();
+    }
+
+    /**
+     * Starts a new game against the engine.
+     * Prompts the player to choose a color; the computer plays the other one.
+     */
+    private void startComputerGame() {
+        System.out.print("\n  Play as (w)hite or (b)lack? ");
+        String choice = scanner.nextLine().trim().toLowerCase();
+        Color human = choice.startsWith("b") ? Color.BLACK : Color.WHITE;
+
+        game = new Game();
+        computerColor = human == Color.WHITE ? Color.BLACK : Color.WHITE;
+        engine = new Search();
+        timer = new GameTimer(10);
+        timer.start();
+        gameLoop();
+    }
+
+    /**
+     * Lets the engine choose and play a move for the current player.
+     * Plays from the opening book while one is loaded and the position is in it.
+     * A pending draw offer from the human is declined.
+     */
+    private void playComputerMove() {
+        if (game.isDrawOffered()) {
+            game.declineDraw();
+        }
+        if (book != null) {
+            int bookMove = book.getBestMove(game.getBoard());
+            if (bookMove != PackedMove.NONE && game.makeMove(PackedMove.toMove(bookMove))) {
+                timer.switchTurn();
+                return;
+            }
+        }
+        System.out.println("\n  Computer is thinking...");
+        SearchResult result = engine.search(game.getBoard(), SearchLimits.time(COMPUTER_THINK_MILLIS));
+        Move move = result.getBestMove();
+        if (move != null && game.makeMove(move)) {
+            timer.switchTurn();
+        }
+    }
+
     /**
      * Loads a game from a PGN file.
      * Prompts user for filename and parses the PGN content.
+     * Games with a FEN tag start from that position.
      */
     private void loadGame() {
         clearScreen();
@@ -94,18 +188,28 @@ public class ChessCLI {
         }
 
         try {
-            String pgnText = PGNParser.readFile(Path.of(filename));
+            // Only the first game of a database is read
+            PGNGame pgnGame;
+            try (PGNReader reader = PGNReader.open(Path.of(filename))) {
+                pgnGame = reader.hasNext() ? reader.next() : null;
+            }
+            if (pgnGame == null) {
+                System.out.println("\n  No game found in " + filename + ".");
+                pause();
+                return;
+            }
             PGNParser parser = new PGNParser();
 
-            game = new Game();
+            game = new Game(PGNParser.startFen(pgnGame.getTags()));
+            computerColor = null;
             Board board = game.getBoard();
 
-            java.util.List<String> moves = parser.parseMoves(pgnText);
-            boolean success = parser.loadToBoard(board, pgnText);
+            java.util.List<String> moves = pgnGame.getMoves();
+            int applied = parser.replay(board, moves, game.getCurrentPlayer());
+            boolean success = applied == moves.size();
 
             if (success) {
-                game.setMoveHistory(moves);
-                game.setCurrentPlayer(moves.size() % 2 == 0 ? Color.WHITE : Color.BLACK);
+                game.replayed(moves);
 
                 timer = new GameTimer(10);
                 timer.start();
@@ -116,7 +220,7 @@ public class ChessCLI {
 
                 gameLoop();
             } else {
-                System.out.println("\n  Failed to load PGN file. Check the file format.");
+                System.out.println("\n  Failed to load PGN file: illegal move " + (applied + 1) + " (" + moves.get(applied) + ").");
                 pause();
             }
         } catch (Exception e) {
@@ -138,6 +242,7 @@ public class ChessCLI {
 
             printGameStatus();
             timer.printTime();
+            if (showExplorer) printExplorer();
 
             if (isGameOver()) {
                 System.out.println("\n  Press Enter to return to main menu...");
@@ -145,6 +250,11 @@ public class ChessCLI {
                 return;
             }
 
+            if (game.getCurrentPlayer() == computerColor) {
+                playComputerMove();
+                continue;
+            }
+
             if (game.isDrawOffered() && game.getDrawOfferedBy() != game.getCurrentPlayer()) {
                 handlePendingDrawOffer();
                 if (isGameOver()) {
@@ -166,7 +276,7 @@ public class ChessCLI {
 
     /**
      * Processes user input commands and moves.
-     * Handles: save, resign, draw offers, and move input.
+     * Handles: save, resign, draw offers, draw claims, the opening explorer, book hints, FEN output, and move input.
      * 
      * @param input The user's input string
      */
@@ -180,11 +290,37 @@ public class ChessCLI {
             return;
         }
 
+        if (input.equalsIgnoreCase("fen")) {
+            System.out.println("\n  " + Fen.toFen(game.getBoard()));
+            pause();
+            return;
+        }
+
+        if (input.equalsIgnoreCase("hint")) {
+            showBookHint();
+            return;
+        }
+
+        if (input.equalsIgnoreCase("explore")) {
+            toggleExplorer();
+            return;
+        }
+
         if (input.equalsIgnoreCase("resign")) {
             game.resign();
             return;
         }
 
+        if (input.equalsIgnoreCase("claim")) {
+            if (game.claimDraw()) {
+                System.out.println("\n  Draw claimed.");
+            } else {
+                System.out.println("\n  No draw to claim (needs threefold repetition or 50 moves without capture or pawn move).");
+            }
+            pause();
+            return;
+        }
+
         if (input.equalsIgnoreCase("draw")) {
             if (game.isDrawOffered()) {
                 System.out.println("\n  Draw already offered.");
@@ -245,6 +381,9 @@ public class ChessCLI {
             case STALEMATE -> printHighlight("STALEMATE — DRAW", 60);
             case DRAW -> printHighlight("DRAW AGREED", 60);
             case RESIGNED -> printHighlight("GAME OVER — " + game.getWinner() + " WINS!", 60);
+            case REPETITION -> printHighlight("DRAW BY REPETITION", 60);
+            case FIFTY_MOVE_RULE -> printHighlight("DRAW BY 50-MOVE RULE", 60);
+            case SEVENTY_FIVE_MOVE_RULE -> printHighlight("DRAW BY 75-MOVE RULE", 60);
         }
     }
 
@@ -253,11 +392,7 @@ public class ChessCLI {
      * @return true if the game is over (checkmate, stalemate, draw, or resigned)
      */
     private boolean isGameOver() {
-        GameState state = game.getState();
-        return state == GameState.CHECKMATE
-                || state == GameState.STALEMATE
-                || state == GameState.DRAW
-                || state == GameState.RESIGNED;
+        return game.isGameOver();
     }
 
     /**
@@ -266,12 +401,95 @@ public class ChessCLI {
     private void printInGameMenu() {
         System.out.println();
         printSeparator(60);
-        System.out.print("  Commands: [save] [resign]");
+        System.out.print("  Commands: [save] [resign] [explore] [hint] [fen]");
         if (!game.isDrawOffered()) System.out.print(" [draw]");
+        if (game.canClaimDraw()) System.out.print(" [claim]");
         System.out.println();
         printSeparator(60);
     }
 
+    /**
+     * Turns the opening explorer panel on or off.
+     * The first time, prompts for an opening tree file (built with ChessTools opentree) and loads it.
+     */
+    private void toggleExplorer() {
+        if (showExplorer) {
+            showExplorer = false;
+            return;
+        }
+        if (openingTree == null) {
+            System.out.print("\n  Enter opening tree filename: ");
+            String filename = scanner.nextLine().trim();
+            if (filename.isEmpty()) return;
+            try {
+                openingTree = OpeningTree.load(Path.of(filename));
+            } catch (Exception e) {
+                System.out.println("\n  Error loading opening tree: " + e.getMessage());
+                pause();
+                return;
+            }
+        }
+        showExplorer = true;
+    }
+
+    /**
+     * Prints the most played moves from the current position with their results,
+     * looked up in the loaded opening tree.
+     */
+    private void printExplorer() {
+        Board board = game.getBoard();
+        List<OpeningTree.MoveStats> stats = openingTree.getStats(board);
+        System.out.println();
+        if (stats.isEmpty()) {
+            System.out.println("  Explorer: position not in the opening tree");
+            return;
+        }
+        PGNParser parser = new PGNParser();
+        System.out.println("  Explorer          games   white   draw  black");
+        for (int i = 0; i < Math.min(EXPLORER_MOVES, stats.size()); i++) {
+            OpeningTree.MoveStats s = stats.get(i);
+            String san = parser.moveToSAN(board, PackedMove.toMove(s.getMove()), board.getSideToMove());
+            System.out.printf("  %-8s %,12d  %5.1f%%  %4.1f%%  %4.1f%%%n", san, s.getGames(),
+                    100.0 * s.getWhiteWins() / s.getGames(), 100.0 * s.getDraws() / s.getGames(),
+                    100.0 * s.getBlackWins() / s.getGames());
+        }
+    }
+
+    /**
+     * Prints the opening book moves for the current position with their weights.
+     * The first time, prompts for a Polyglot .bin book and loads it; from then on
+     * the computer player also takes its moves from the book while it can.
+     */
+    private void showBookHint() {
+        if (book == null) {
+            System.out.print("\n  Enter Polyglot book filename (.bin): ");
+            String filename = scanner.nextLine().trim();
+            if (filename.isEmpty()) return;
+            try {
+                book = new PolyglotBook(Path.of(filename));
+            } catch (Exception e) {
+                System.out.println("\n  Error loading book: " + e.getMessage());
+                pause();
+                return;
+            }
+        }
+        Board board = game.getBoard();
+        List<PolyglotBook.BookMove> moves = book.getMoves(board);
+        System.out.println();
+        if (moves.isEmpty()) {
+            System.out.println("  Out of book.");
+        } else {
+            long total = 0;
+            for (PolyglotBook.BookMove move : moves) total += move.getWeight();
+            PGNParser parser = new PGNParser();
+            for (PolyglotBook.BookMove move : moves) {
+                String san = parser.moveToSAN(board, PackedMove.toMove(move.getMove()), board.getSideToMove());
+                System.out.printf("  %-8s %5.1f%%%n", san, 100.0 * move.getWeight() / Math.max(1, total));
+            }
+        }
+        pause();
+    }
+
     /**
      * Saves the current game to a PGN file.
      * Prompts user for filename and exports the game.
@@ -300,11 +518,15 @@ public class ChessCLI {
 
             String result = switch (game.getState()) {
                 case CHECKMATE -> game.getCurrentPlayer() == Color.WHITE ? "0-1" : "1-0";
-                case DRAW, STALEMATE -> "1/2-1/2";
+                case DRAW, STALEMATE, REPETITION, FIFTY_MOVE_RULE, SEVENTY_FIVE_MOVE_RULE -> "1/2-1/2";
                 case RESIGNED -> game.getCurrentPlayer() == Color.WHITE ? "0-1" : "1-0";
                 default -> "*";
             };
             tags.put("Result", result);
+            if (!game.getStartFen().equals(Fen.START_POSITION)) {
+                tags.put("SetUp", "1");
+                tags.put("FEN", game.getStartFen());
+            }
 
             PGNExporter.saveToFile(Path.of(filename), tags, game.getMoveHistory(), result);
             System.out.println("\n  Game saved to: " + filename);
@@ -0,0 +1,279 @@
+package engine;
+
+import board.Attacks;
+import board.BitboardPosition;
+import board.Board;
+import board.PieceSquareTables;
+import enums.Color;
+import enums.PieceType;
+
+/**
+ * Static position evaluation for the search.
+ * Scores are in centipawns from the point of view of the side to move.
+ *
+ * Every term has a middlegame and an endgame value, blended by the game phase
+ * (tapered evaluation), so the weights shift smoothly as pieces come off:
+ * <ul>
+ *   <li>material and piece-square tables, read from the sums the board keeps up to date
+ *       on every move (see {@link PieceSquareTables}),</li>
+ *   <li>pawn structure: doubled, isolated, backward and passed pawns, cached per pawn
+ *       configuration in a {@link PawnHashTable},</li>
+ *   <li>mobility: squares each knight, bishop, rook and queen reaches that are neither
+ *       its own pieces nor guarded by enemy pawns,</li>
+ *   <li>king safety: the pawn shield in front of a castled king and the number of
+ *       enemy piece attacks on the squares around it.</li>
+ * </ul>
+ * The terms are computed the same way for both colors, so a position and its color-flipped
+ * mirror get the same score. An instance keeps scratch state and must not be shared between threads.
+ */
+public class Evaluator {
+    public static final int PAWN_VALUE = 100;
+    public static final int KNIGHT_VALUE = 320;
+    public static final int BISHOP_VALUE = 330;
+    public static final int ROOK_VALUE = 500;
+    public static final int QUEEN_VALUE = 900;
+
+    /**
+     * Lopsided positions for checking that every term scores both colors alike: each must
+     * evaluate the same as its color-flipped mirror ({@link board.Fen#mirror}).
+     */
+    public static final String[] SYMMETRY_POSITIONS = {
+            // Kings castled on opposite wings
+            "r1bq1rk1/pp2ppbp/2np1np1/8/3NP3/2N1BP2/PPPQ2PP/2KR1B1R w - - 3 10",
+            // Backward d6 pawn
+            "r1bqkb1r/1p3ppp/p1np1n2/4p3/4P3/1NN5/PPP1BPPP/R1BQK2R w KQkq - 0 8",
+            // Isolated queen pawn, one king without its shield
+            "r4rk1/pp3ppp/2n5/3q4/3P4/5N2/PP3PPP/R2Q2K1 b - - 0 15",
+            // Passed pawns of both colors in an endgame
+            "8/5k2/8/2P5/8/1p6/5K2/8 w - - 0 1",
+            // En passant capture available, White and Black to move
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "rnbqkbnr/pppp1ppp/8/8/3Pp3/4P3/PPP2PPP/RNBQKBNR b KQkq d3 0 3",
+            // Promotions pending, with castling rights on one side
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+            // Busy middlegame (Kiwipete)
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+    };
+
+    private static final int DOUBLED_MG = -10;
+    private static final int DOUBLED_EG = -20;
+    private static final int ISOLATED_MG = -10;
+    private static final int ISOLATED_EG = -15;
+    private static final int BACKWARD_MG = -8;
+    private static final int BACKWARD_EG = -10;
+    /** Passed pawn bonus by rank counted from the pawn's own side (index 1 = second rank). */
+    private static final int[] PASSED_MG = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_EG = {0, 10, 20, 35, 60, 90, 130, 0};
+
+    /** Piece types scored for mobility. */
+    private static final PieceType[] MOBILE_TYPES = {PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+    /** Mobility bonus per reachable square, in PieceType order. */
+    private static final int[] MOBILITY_MG = {0, 1, 2, 5, 4, 0};
+    private static final int[] MOBILITY_EG = {0, 2, 4, 5, 4, 0};
+
+    /** Bonus per own pawn directly in front of the king, and one rank further. */
+    private static final int SHIELD_NEAR = 10;
+    private static final int SHIELD_FAR = 5;
+    /** Penalty per enemy piece attack on the squares around the king, by number of attackers. */
+    private static final int[] KING_ATTACK_WEIGHT = {0, 0, 8, 14, 18, 20, 22, 24};
+
+    /** Files adjacent to each file. */
+    private static final long[] ADJACENT_FILES = new long[8];
+    /** Squares in front of a pawn on its file and the adjacent files, by color ordinal and square. */
+    private static final long[][] PASSED_SPAN = new long[2][64];
+    /** Squares on the adjacent files level with or behind a pawn, by color ordinal and square. */
+    private static final long[][] SUPPORT_SPAN = new long[2][64];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            if (file > 0) ADJACENT_FILES[file] |= Attacks.FILE_A << (file - 1);
+            if (file < 7) ADJACENT_FILES[file] |= Attacks.FILE_A << (file + 1);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            long files = ADJACENT_FILES[sq & 7] | (Attacks.FILE_A << (sq & 7));
+            int rank = sq >>> 3;
+            long above = rank == 7 ? 0L : -1L << ((rank + 1) * 8);
+            long below = (1L << (rank * 8)) - 1;
+            PASSED_SPAN[Color.WHITE.ordinal()][sq] = files & above;
+            PASSED_SPAN[Color.BLACK.ordinal()][sq] = files & below;
+            SUPPORT_SPAN[Color.WHITE.ordinal()][sq] = ADJACENT_FILES[sq & 7] & ~above;
+            SUPPORT_SPAN[Color.BLACK.ordinal()][sq] = ADJACENT_FILES[sq & 7] & ~below;
+        }
+    }
+
+    private final PawnHashTable pawnTable;
+    /** Middlegame and endgame score accumulated by the terms, from White's point of view. */
+    private int mg;
+    private int eg;
+
+    /**
+     * Creates an evaluator with a pawn hash table of the default size.
+     */
+    public Evaluator() {
+        this(new PawnHashTable());
+    }
+
+    /**
+     * Creates an evaluator that caches pawn structure scores in the given table.
+     * @param pawnTable The pawn hash table, used by this evaluator only
+     */
+    public Evaluator(PawnHashTable pawnTable) {
+        this.pawnTable = pawnTable;
+    }
+
+    /**
+     * Gets the pawn hash table, for its hit counts.
+     * @return The pawn hash table
+     */
+    public PawnHashTable getPawnTable() {
+        return pawnTable;
+    }
+
+    /**
+     * Evaluates a position.
+     * @param board The position to evaluate
+     * @return The score in centipawns, positive when the side to move is better
+     */
+    public int evaluate(Board board) {
+        BitboardPosition bb = board.getBitboards();
+        long pawnKey = board.getPawnKey();
+        long pawns = pawnTable.probe(pawnKey);
+        if (pawns == PawnHashTable.MISS) {
+            mg = 0;
+            eg = 0;
+            pawnStructure(bb, Color.WHITE, 1);
+            pawnStructure(bb, Color.BLACK, -1);
+            pawnTable.store(pawnKey, mg, eg);
+        } else {
+            mg = PawnHashTable.middlegame(pawns);
+            eg = PawnHashTable.endgame(pawns);
+        }
+        mg += board.getMiddlegameScore();
+        eg += board.getEndgameScore();
+
+        long occupied = bb.getOccupancy();
+        pieces(bb, occupied, Color.WHITE, 1);
+        pieces(bb, occupied, Color.BLACK, -1);
+        kingShield(bb, Color.WHITE, 1);
+        kingShield(bb, Color.BLACK, -1);
+
+        int phase = Math.min(board.getPhase(), PieceSquareTables.MAX_PHASE);
+        int score = (mg * phase + eg * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+        return board.getSideToMove() == Color.WHITE ? score : -score;
+    }
+
+    /**
+     * Gets the value of a piece type.
+     * @param type The piece type
+     * @return The value in centipawns (0 for the king)
+     */
+    public static int pieceValue(PieceType type) {
+        return switch (type) {
+            case PAWN -> PAWN_VALUE;
+            case KNIGHT -> KNIGHT_VALUE;
+            case BISHOP -> BISHOP_VALUE;
+            case ROOK -> ROOK_VALUE;
+            case QUEEN -> QUEEN_VALUE;
+            case KING -> 0;
+        };
+    }
+
+    /**
+     * Scores doubled, isolated, backward and passed pawns of one side.
+     * The score depends on the pawns alone, so it can be cached by pawn key.
+     * @param sign 1 for White, -1 for Black
+     */
+    private void pawnStructure(BitboardPosition bb, Color color, int sign) {
+        Color them = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+        long pawns = bb.getPieces(color, PieceType.PAWN);
+        long theirPawns = bb.getPieces(them, PieceType.PAWN);
+        for (int file = 0; file < 8; file++) {
+            int count = Long.bitCount(pawns & (Attacks.FILE_A << file));
+            if (count == 0) continue;
+            if (count > 1) {
+                mg += sign * DOUBLED_MG * (count - 1);
+                eg += sign * DOUBLED_EG * (count - 1);
+            }
+            if ((pawns & ADJACENT_FILES[file]) == 0) {
+                mg += sign * ISOLATED_MG * count;
+                eg += sign * ISOLATED_EG * count;
+            }
+        }
+        int step = color == Color.WHITE ? 8 : -8;
+        for (long p = pawns; p != 0; p &= p - 1) {
+            int sq = Long.numberOfTrailingZeros(p);
+            if ((PASSED_SPAN[color.ordinal()][sq] & theirPawns) != 0) {
+                // Backward: no neighbour can come up to support it and an enemy pawn guards its stop square
+                if ((pawns & ADJACENT_FILES[sq & 7]) != 0
+                        && (pawns & SUPPORT_SPAN[color.ordinal()][sq]) == 0
+                        && (Attacks.pawn(color, sq + step) & theirPawns) != 0) {
+                    mg += sign * BACKWARD_MG;
+                    eg += sign * BACKWARD_EG;
+                }
+                continue;
+            }
+            int rank = color == Color.WHITE ? sq >>> 3 : 7 - (sq >>> 3);
+            mg += sign * PASSED_MG[rank];
+            eg += sign * PASSED_EG[rank];
+        }
+    }
+
+    /**
+     * Scores the mobility of one side's pieces and their attacks on the enemy king's surroundings.
+     * @param sign 1 for White, -1 for Black
+     */
+    private void pieces(BitboardPosition bb, long occupied, Color color, int sign) {
+        Color them = color == Color.WHITE ? Color.BLACK : Color.WHITE;
+        long theirPawns = bb.getPieces(them, PieceType.PAWN);
+        long pawnGuarded = 0L;
+        for (long p = theirPawns; p != 0; p &= p - 1) {
+            pawnGuarded |= Attacks.pawn(them, Long.numberOfTrailingZeros(p));
+        }
+        long available = ~bb.getOccupancy(color) & ~pawnGuarded;
+        int theirKing = bb.getKingSquare(them);
+        long kingZone = theirKing < 0 ? 0L : Attacks.king(theirKing);
+
+        int attackers = 0;
+        int attacks = 0;
+        for (PieceType type : MOBILE_TYPES) {
+            int t = type.ordinal();
+            for (long p = bb.getPieces(color, type); p != 0; p &= p - 1) {
+                int sq = Long.numberOfTrailingZeros(p);
+                long reach = switch (type) {
+                    case KNIGHT -> Attacks.knight(sq);
+                    case BISHOP -> Attacks.bishop(sq, occupied);
+                    case ROOK -> Attacks.rook(sq, occupied);
+                    default -> Attacks.queen(sq, occupied);
+                };
+                int squares = Long.bitCount(reach & available);
+                mg += sign * MOBILITY_MG[t] * squares;
+                eg += sign * MOBILITY_EG[t] * squares;
+                int hits = Long.bitCount(reach & kingZone);
+                if (hits > 0) {
+                    attackers++;
+                    attacks += hits;
+                }
+            }
+        }
+        // A lone attacker is rarely dangerous; the penalty grows with the number of pieces joining in
+        mg += sign * KING_ATTACK_WEIGHT[Math.min(attackers, KING_ATTACK_WEIGHT.length - 1)] * attacks;
+    }
+
+    /**
+     * Scores the pawns sheltering one side's king while it stands on its first two ranks.
+     * @param sign 1 for White, -1 for Black
+     */
+    private void kingShield(BitboardPosition bb, Color color, int sign) {
+        int king = bb.getKingSquare(color);
+        if (king < 0) return;
+        int rank = color == Color.WHITE ? king >>> 3 : 7 - (king >>> 3);
+        if (rank > 1) return;
+        long files = ADJACENT_FILES[king & 7] | (Attacks.FILE_A << (king & 7));
+        long pawns = bb.getPieces(color, PieceType.PAWN) & files;
+        int step = color == Color.WHITE ? 8 : -8;
+        long near = Attacks.RANK_1 << ((king >>> 3) * 8 + step);
+        long far = step > 0 ? near << 8 : near >>> 8;
+        mg += sign * (SHIELD_NEAR * Long.bitCount(pawns & near) + SHIELD_FAR * Long.bitCount(pawns & far));
+    }
+}
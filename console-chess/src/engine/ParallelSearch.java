@@ -0,0 +1,107 @@
+package engine;
+
+import board.Board;
+
+/**
+ * Multi-threaded search using Lazy SMP.
+ * Every thread runs its own {@link Search} on its own copy of the board, and all of them
+ * share one {@link TranspositionTable}. The threads do not divide the work explicitly;
+ * they speed each other up through the entries they leave in the table. Odd-numbered
+ * helpers start one iteration deeper so the threads do not all walk the same tree.
+ *
+ * The calling thread runs the main search under the given limits. When it finishes,
+ * the helpers are stopped and joined. The reported move is from the thread with the
+ * deepest completed iteration; ties go to the lowest thread number, so the main
+ * thread wins a tie. Node counts are summed over all threads.
+ */
+public class ParallelSearch {
+    private final Search[] searches;
+    private final TranspositionTable table;
+    private volatile boolean stopRequested;
+
+    /**
+     * Creates a parallel search.
+     * @param threads Number of search threads including the calling thread (at least 1)
+     * @param table The transposition table shared by all threads
+     */
+    public ParallelSearch(int threads, TranspositionTable table) {
+        if (threads < 1) throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        this.table = table;
+        this.searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(new Evaluator(), table);
+        }
+    }
+
+    /**
+     * Gets the number of search threads.
+     * @return The thread count including the calling thread
+     */
+    public int getThreadCount() {
+        return searches.length;
+    }
+
+    /**
+     * Searches a position with all threads until the main search reaches a limit or is stopped.
+     * The given board is not modified.
+     *
+     * @param position The position to search
+     * @param limits The depth, node and time budget of the main search
+     * @return The result of the deepest completed iteration over all threads
+     */
+    public SearchResult search(Board position, SearchLimits limits) {
+        stopRequested = false;
+        table.newSearch();
+        for (Search search : searches) {
+            search.clearStop();
+        }
+
+        // Helpers only stop when told to, or at the depth limit
+        SearchLimits helperLimits = SearchLimits.depth(limits.getMaxDepth());
+        SearchResult[] results = new SearchResult[searches.length];
+        Thread[] helpers = new Thread[searches.length - 1];
+        for (int i = 1; i < searches.length; i++) {
+            final int index = i;
+            helpers[i - 1] = new Thread(() ->
+                    results[index] = searches[index].iterate(position, helperLimits, 1 + (index & 1)),
+                    "search-helper-" + i);
+            helpers[i - 1].start();
+        }
+
+        long start = System.nanoTime();
+        if (stopRequested) searches[0].stop();
+        results[0] = searches[0].iterate(position, limits, 1);
+        for (int i = 1; i < searches.length; i++) {
+            searches[i].stop();
+        }
+        for (Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000L;
+
+        SearchResult best = results[0];
+        long nodes = 0;
+        for (int i = 0; i < results.length; i++) {
+            SearchResult r = results[i];
+            if (r == null) continue;
+            nodes += r.getNodes();
+            if (r.getDepth() > best.getDepth()) best = r;
+        }
+        return new SearchResult(best.getPackedBestMove(), best.getScore(), best.getDepth(),
+                nodes, elapsed, best.getPackedPrincipalVariation());
+    }
+
+    /**
+     * Asks all threads to stop as soon as possible. Safe to call from another thread.
+     */
+    public void stop() {
+        stopRequested = true;
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package engine;
+
+/**
+ * Fixed-size cache of pawn structure scores keyed by the board's pawn key
+ * ({@link board.Board#getPawnKey()}).
+ * Pawn structure only changes on pawn moves and captures of pawns, so most positions a search
+ * visits share their pawns with a position evaluated just before; a hit saves scanning the pawns.
+ *
+ * Entries are packed into a flat {@code long[]}: each slot is two longs, the pawn key and the
+ * middlegame and endgame scores (high and low 32 bits). A slot is found by masking the key and a
+ * new entry always replaces the old one. The table is not thread-safe; each {@link Evaluator}
+ * owns its own. The number of probes and hits is counted for tuning the size.
+ */
+public final class PawnHashTable {
+    /** Table size used when none is given. */
+    public static final int DEFAULT_SIZE_KB = 256;
+    /** Returned by {@link #probe(long)} when the pawn structure is not in the table. */
+    public static final long MISS = Long.MIN_VALUE;
+
+    private static final int BYTES_PER_SLOT = 16;
+
+    private final long[] table;
+    private final int slotMask;
+    private long probes;
+    private long hits;
+
+    /**
+     * Creates a table of about the given size.
+     * The number of slots is rounded down to a power of two so that an index is a mask of the key.
+     * @param sizeKb Size in kilobytes (at least 1)
+     */
+    public PawnHashTable(int sizeKb) {
+        if (sizeKb < 1) throw new IllegalArgumentException("Table size must be at least 1 KB: " + sizeKb);
+        int slots = Integer.highestOneBit((int) Math.min((long) sizeKb * 1024 / BYTES_PER_SLOT, 1 << 28));
+        this.table = new long[slots * 2];
+        this.slotMask = slots - 1;
+        clear();
+    }
+
+    /**
+     * Creates a table of the default size.
+     */
+    public PawnHashTable() {
+        this(DEFAULT_SIZE_KB);
+    }
+
+    /**
+     * Gets the number of entries the table can hold.
+     * @return The slot count
+     */
+    public int getCapacity() {
+        return table.length / 2;
+    }
+
+    /**
+     * Removes every entry and resets the hit counts.
+     */
+    public void clear() {
+        // An empty slot must not match the key 0 of a position without pawns, so its data is MISS
+        for (int i = 0; i < table.length; i += 2) {
+            table[i] = 0L;
+            table[i + 1] = MISS;
+        }
+        resetStats();
+    }
+
+    /**
+     * Looks up a pawn structure.
+     * @param pawnKey The position's pawn key
+     * @return The packed scores, or MISS if the structure is not in the table
+     */
+    public long probe(long pawnKey) {
+        probes++;
+        int slot = index(pawnKey);
+        if (table[slot] == pawnKey && table[slot + 1] != MISS) {
+            hits++;
+            return table[slot + 1];
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores the scores of a pawn structure.
+     * @param pawnKey The position's pawn key
+     * @param middlegame The middlegame score from White's point of view
+     * @param endgame The endgame score from White's point of view
+     */
+    public void store(long pawnKey, int middlegame, int endgame) {
+        int slot = index(pawnKey);
+        table[slot] = pawnKey;
+        table[slot + 1] = ((long) middlegame << 32) | (endgame & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the middlegame score stored in an entry.
+     * @param entry Packed scores from {@link #probe(long)}
+     * @return The score in centipawns from White's point of view
+     */
+    public static int middlegame(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    /**
+     * Gets the endgame score stored in an entry.
+     * @param entry Packed scores from {@link #probe(long)}
+     * @return The score in centipawns from White's point of view
+     */
+    public static int endgame(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * Gets the number of lookups since the table was created or the counts were reset.
+     * @return The probe count
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * Gets the number of lookups that found their pawn structure.
+     * @return The hit count
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the share of lookups that found their pawn structure.
+     * @return Hits per probe, 0 if there were no probes
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    /**
+     * Resets the probe and hit counts without removing entries.
+     */
+    public void resetStats() {
+        probes = 0;
+        hits = 0;
+    }
+
+    private int index(long pawnKey) {
+        return ((int) (pawnKey ^ (pawnKey >>> 32)) & slotMask) * 2;
+    }
+}
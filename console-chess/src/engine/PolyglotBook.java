@@ -0,0 +1,198 @@
+package engine;
+
+import board.Board;
+import board.MoveGenerator;
+import board.MoveList;
+import board.PackedMove;
+import board.Polyglot;
+import enums.PieceType;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reader for Polyglot {@code .bin} opening books.
+ * A book is a sequence of 16-byte big-endian entries sorted by key: the position's
+ * {@link Polyglot} key (8 bytes), the move (2 bytes), a weight (2 bytes) and a learning
+ * value (4 bytes, unused here). The file is memory-mapped and a lookup is a binary search
+ * for the first entry of the position, so it costs a few page touches and no search.
+ *
+ * A book move stores from, to and promotion only, with castling written as the king
+ * capturing its own rook; moves are matched against the legal moves of the position,
+ * which also filters out entries that belong to another position with the same key.
+ */
+public class PolyglotBook implements Closeable {
+    /** Size of one book entry in bytes. */
+    public static final int ENTRY_SIZE = 16;
+
+    private static final PieceType[] PROMOTIONS = {null, PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    private final FileChannel channel;
+    private final ByteBuffer entries;
+    private final int entryCount;
+
+    /**
+     * Opens and maps a book file.
+     * @param path The .bin file to read
+     * @throws IOException if the file cannot be read or is not a Polyglot book
+     */
+    public PolyglotBook(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size % ENTRY_SIZE != 0) throw new IOException("Not a Polyglot book: " + path);
+            if (size > Integer.MAX_VALUE) throw new IOException("Polyglot book too large to map: " + path);
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            entryCount = (int) (size / ENTRY_SIZE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of entries in the book.
+     * @return The entry count
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Finds the book moves for a position, in the order the book lists them.
+     * @param board The position
+     * @return The legal book moves with their weights; empty if the position is not in the book
+     */
+    public List<BookMove> getMoves(Board board) {
+        long key = Polyglot.key(board);
+        List<BookMove> moves = new ArrayList<>();
+        MoveList legal = null;
+        for (int i = firstEntry(key); i < entryCount && entries.getLong(i * ENTRY_SIZE) == key; i++) {
+            if (legal == null) {
+                legal = new MoveList();
+                MoveGenerator.generateLegalMoves(board, board.getSideToMove(), legal);
+            }
+            int move = toPackedMove(entries.getShort(i * ENTRY_SIZE + 8) & 0xFFFF, legal);
+            int weight = entries.getShort(i * ENTRY_SIZE + 10) & 0xFFFF;
+            if (move != PackedMove.NONE) moves.add(new BookMove(move, weight));
+        }
+        return moves;
+    }
+
+    /**
+     * Gets the book move with the highest weight.
+     * @param board The position
+     * @return The packed move, or PackedMove.NONE if the position is not in the book
+     */
+    public int getBestMove(Board board) {
+        int best = PackedMove.NONE;
+        int bestWeight = -1;
+        for (BookMove move : getMoves(board)) {
+            if (move.getWeight() > bestWeight) {
+                best = move.getMove();
+                bestWeight = move.getWeight();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Picks a book move at random, each with a probability proportional to its weight.
+     * @param board The position
+     * @param random The source of randomness
+     * @return The packed move, or PackedMove.NONE if the position is not in the book
+     */
+    public int pickMove(Board board, Random random) {
+        List<BookMove> moves = getMoves(board);
+        long total = 0;
+        for (BookMove move : moves) total += move.getWeight();
+        if (total == 0) return moves.isEmpty() ? PackedMove.NONE : moves.get(0).getMove();
+        long pick = (long) (random.nextDouble() * total);
+        for (BookMove move : moves) {
+            pick -= move.getWeight();
+            if (pick < 0) return move.getMove();
+        }
+        return moves.get(moves.size() - 1).getMove();
+    }
+
+    /**
+     * Closes the file. The mapping is released once it is no longer referenced.
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Finds the first entry whose key is not less than the given key.
+     * Books are sorted by key as an unsigned number.
+     */
+    private int firstEntry(long key) {
+        int lo = 0;
+        int hi = entryCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(entries.getLong(mid * ENTRY_SIZE), key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Matches a Polyglot move (to square in bits 0-5, from square in bits 6-11,
+     * promotion piece in bits 12-14) against the legal moves.
+     */
+    private static int toPackedMove(int bookMove, MoveList legal) {
+        int to = bookMove & 0x3F;
+        int from = (bookMove >>> 6) & 0x3F;
+        int promotionCode = (bookMove >>> 12) & 0x7;
+        PieceType promotion = promotionCode < PROMOTIONS.length ? PROMOTIONS[promotionCode] : null;
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            if (PackedMove.from(move) != from || PackedMove.promotion(move) != promotion) continue;
+            int target = PackedMove.to(move);
+            if (PackedMove.isCastle(move)) {
+                // e1h1 / e1a1: the king moves onto its rook's square
+                target = target > from ? target + 1 : target - 2;
+            }
+            if (target == to) return move;
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     * A move found in the book and its weight.
+     */
+    public static final class BookMove {
+        private final int move;
+        private final int weight;
+
+        private BookMove(int move, int weight) {
+            this.move = move;
+            this.weight = weight;
+        }
+
+        /**
+         * Gets the move, with the flags the board expects.
+         * @return The packed move
+         */
+        public int getMove() {
+            return move;
+        }
+
+        /**
+         * Gets the weight the book gives the move; higher is played more often.
+         * @return The weight, 0-65535
+         */
+        public int getWeight() {
+            return weight;
+        }
+    }
+}
@@ -0,0 +1,421 @@
+package engine;
+
+import board.Board;
+import board.MoveGenerator;
+import board.MoveList;
+import board.PackedMove;
+import enums.PieceType;
+import java.util.Arrays;
+
+/**
+ * Negamax alpha-beta search with iterative deepening and quiescence search.
+ * The search works on its own copy of the board with make/unmake and
+ * preallocated per-ply move lists, so a search allocates almost nothing once started.
+ * Results are kept in a {@link TranspositionTable}, so each iteration of the deepening
+ * starts from what the previous ones learned and transpositions are searched once.
+ * One instance searches one position at a time; use separate instances for parallel searches.
+ */
+public class Search {
+    /** Score of delivering mate right now; mate in n plies scores MATE - n. */
+    public static final int MATE = 100000;
+    /** Deepest ply the search can reach, including quiescence. */
+    public static final int MAX_PLY = 64;
+
+    private static final int INFINITY = MATE + 1;
+    /** Nodes between two looks at the clock (must be a power of two minus one). */
+    private static final int TIME_CHECK_MASK = 1023;
+
+    private static final int SCORE_PV = 1_000_000;
+    private static final int SCORE_CAPTURE = 100_000;
+    private static final int SCORE_PROMOTION = 90_000;
+    private static final int SCORE_KILLER = 80_000;
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] moveScores = new int[MAX_PLY + 1][MoveList.MAX_MOVES];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private int[] previousPv = new int[0];
+
+    private Board board;
+    private long[] keys;
+    private int rootKeyIndex;
+    private long nodes;
+    private long maxNodes;
+    private long deadline;
+    private boolean aborted;
+    private volatile boolean stopRequested;
+
+    /**
+     * Creates a search with the default evaluator and a transposition table of the default size.
+     */
+    public Search() {
+        this(new Evaluator(), new TranspositionTable());
+    }
+
+    /**
+     * Creates a search with the given evaluator and transposition table.
+     * @param evaluator The static evaluation to use at leaf nodes
+     * @param table The transposition table (may be shared with other searches)
+     */
+    public Search(Evaluator evaluator, TranspositionTable table) {
+        this.evaluator = evaluator;
+        this.table = table;
+        for (int i = 0; i <= MAX_PLY; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Searches a position for the side to move until a limit is reached.
+     * The given board is not modified; the search runs on a copy that also remembers
+     * the positions played before it, so repetitions of earlier positions score as draws.
+     *
+     * @param position The position to search
+     * @param limits The depth, node and time budget
+     * @return The best move found in the last completed iteration, with its score and principal variation
+     */
+    public SearchResult search(Board position, SearchLimits limits) {
+        stopRequested = false;
+        table.newSearch();
+        return iterate(position, limits, 1);
+    }
+
+    /**
+     * Runs the iterative deepening loop from a given first depth, without resetting the stop
+     * request or starting a new table generation. Parallel helper searches use this directly.
+     *
+     * @param position The position to search
+     * @param limits The depth, node and time budget
+     * @param firstDepth The depth of the first iteration
+     * @return The result of the last completed iteration
+     */
+    SearchResult iterate(Board position, SearchLimits limits, int firstDepth) {
+        long start = System.nanoTime();
+        aborted = false;
+        nodes = 0;
+        maxNodes = limits.getMaxNodes();
+        deadline = limits.getMaxTimeMillis() > 0 ? start + limits.getMaxTimeMillis() * 1_000_000L : 0;
+        int maxDepth = limits.getMaxDepth() > 0 ? Math.min(limits.getMaxDepth(), MAX_PLY - 1) : MAX_PLY - 1;
+
+        board = position.clone();
+        long[] history = position.getKeyHistory();
+        keys = new long[history.length + MAX_PLY + 2];
+        System.arraycopy(history, 0, keys, 0, history.length);
+        rootKeyIndex = history.length;
+        previousPv = new int[0];
+        for (int[] k : killers) {
+            k[0] = PackedMove.NONE;
+            k[1] = PackedMove.NONE;
+        }
+
+        MoveList rootMoves = new MoveList();
+        MoveGenerator.generateLegalMoves(board, board.getSideToMove(), rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = MoveGenerator.isInCheck(board, board.getSideToMove()) ? -MATE : 0;
+            return new SearchResult(PackedMove.NONE, score, 0, 0, elapsedMillis(start), new int[0]);
+        }
+
+        int bestMove = rootMoves.get(0);
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = firstDepth; depth <= maxDepth; depth++) {
+            int score = negamax(depth, 0, -INFINITY, INFINITY);
+            if (aborted) break;
+
+            previousPv = Arrays.copyOf(pv[0], pvLength[0]);
+            if (previousPv.length > 0) bestMove = previousPv[0];
+            bestScore = score;
+            completedDepth = depth;
+
+            if (isMateScore(score) && MATE - Math.abs(score) <= depth) break;
+            // Another iteration takes longer than all previous ones together
+            if (deadline > 0 && System.nanoTime() - start > (deadline - start) / 2) break;
+        }
+        if (previousPv.length == 0) previousPv = new int[] {bestMove};
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes, elapsedMillis(start), previousPv);
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible.
+     * The search then returns the result of its last completed iteration.
+     * Safe to call from another thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Clears a stop request before the search is started by {@link #iterate}.
+     */
+    void clearStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Gets the number of nodes searched so far by the current or last search.
+     * @return The node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Checks if a score means a forced mate for one side.
+     * @param score A search score
+     * @return true for mate scores
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE - 2 * MAX_PLY;
+    }
+
+    /**
+     * Full-width alpha-beta search in negamax form.
+     * @return The score from the side to move's point of view, or 0 if the search was aborted
+     */
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (countNode()) return 0;
+        keys[rootKeyIndex + ply] = board.getKey();
+
+        if (ply > 0 && (board.getHalfmoveClock() >= 100 || isRepetition(ply))) {
+            return 0;
+        }
+
+        boolean inCheck = MoveGenerator.isInCheck(board, board.getSideToMove());
+        if (inCheck) depth++;
+        if (depth <= 0) return quiescence(ply, alpha, beta);
+        if (ply >= MAX_PLY - 1) return evaluator.evaluate(board);
+
+        long key = board.getKey();
+        long entry = table.probe(key);
+        int hashMove = PackedMove.NONE;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        MoveGenerator.generateLegalMoves(board, board.getSideToMove(), moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        if (hashMove == PackedMove.NONE && ply < previousPv.length) hashMove = previousPv[ply];
+        scoreMoves(moves, ply, hashMove, false);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = PackedMove.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickMove(moves, ply, i);
+            board.makeMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (aborted) return 0;
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (!PackedMove.isCapture(move) && !PackedMove.isPromotion(move)) {
+                            storeKiller(ply, move);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+                : best > originalAlpha ? TranspositionTable.BOUND_EXACT
+                : TranspositionTable.BOUND_UPPER;
+        table.store(key, bestMove, scoreToTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Converts a mate score from "mate in n plies from the root" to "from this node" for storing,
+     * so the entry stays correct when the position is reached at another ply.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - 2 * MAX_PLY) return score + ply;
+        if (score <= -MATE + 2 * MAX_PLY) return score - ply;
+        return score;
+    }
+
+    /**
+     * Converts a stored mate score back to "mate in n plies from the root".
+     */
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - 2 * MAX_PLY) return score - ply;
+        if (score <= -MATE + 2 * MAX_PLY) return score + ply;
+        return score;
+    }
+
+    /**
+     * Searches captures and promotions only (all evasions when in check) until the position is quiet,
+     * so that the static evaluation is never taken in the middle of an exchange.
+     * @return The score from the side to move's point of view, or 0 if the search was aborted
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (countNode()) return 0;
+        if (ply >= MAX_PLY - 1) return evaluator.evaluate(board);
+
+        boolean inCheck = MoveGenerator.isInCheck(board, board.getSideToMove());
+        int best = -INFINITY;
+        if (!inCheck) {
+            int standPat = evaluator.evaluate(board);
+            if (standPat >= beta) return standPat;
+            if (standPat > alpha) alpha = standPat;
+            best = standPat;
+        }
+
+        MoveList moves = moveLists[ply];
+        MoveGenerator.generateLegalMoves(board, board.getSideToMove(), moves);
+        if (inCheck && moves.isEmpty()) return -MATE + ply;
+        scoreMoves(moves, ply, PackedMove.NONE, !inCheck);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickMove(moves, ply, i);
+            // Quiet moves were sorted last with a negative score; nothing tactical is left
+            if (!inCheck && moveScores[ply][i] < 0) break;
+            board.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (aborted) return 0;
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Counts a node and checks the node, time and stop limits.
+     * @return true if the search must stop
+     */
+    private boolean countNode() {
+        nodes++;
+        if (maxNodes > 0 && nodes >= maxNodes) aborted = true;
+        if ((nodes & TIME_CHECK_MASK) == 0) {
+            if (stopRequested || (deadline > 0 && System.nanoTime() >= deadline)) aborted = true;
+        }
+        return aborted;
+    }
+
+    /**
+     * Checks if the position at this ply already occurred since the last capture or pawn move,
+     * either earlier in the search or in the game before the root.
+     */
+    private boolean isRepetition(int ply) {
+        int index = rootKeyIndex + ply;
+        long key = keys[index];
+        int oldest = Math.max(0, index - board.getHalfmoveClock());
+        for (int i = index - 4; i >= oldest; i -= 2) {
+            if (keys[i] == key) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gives every move an ordering score: hash or previous principal variation move first,
+     * then captures by most valuable victim / least valuable attacker, promotions,
+     * killer moves, and finally quiet moves.
+     * @param capturesOnly true to score quiet moves negative so quiescence can skip them
+     */
+    private void scoreMoves(MoveList moves, int ply, int hashMove, boolean capturesOnly) {
+        int[] scores = moveScores[ply];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score;
+            if (move == hashMove) {
+                score = SCORE_PV;
+            } else if (PackedMove.isCapture(move)) {
+                int to = PackedMove.to(move);
+                PieceType victim = PackedMove.isEnPassant(move) ? PieceType.PAWN : board.getPieceAt(to).getType();
+                PieceType attacker = board.getPieceAt(PackedMove.from(move)).getType();
+                score = SCORE_CAPTURE + Evaluator.pieceValue(victim) * 8 - Evaluator.pieceValue(attacker) / 10;
+                if (PackedMove.promotion(move) == PieceType.QUEEN) score += Evaluator.QUEEN_VALUE;
+            } else if (PackedMove.isPromotion(move)) {
+                score = PackedMove.promotion(move) == PieceType.QUEEN ? SCORE_PROMOTION : (capturesOnly ? -1 : 0);
+            } else if (capturesOnly) {
+                score = -1;
+            } else if (move == killers[ply][0]) {
+                score = SCORE_KILLER;
+            } else if (move == killers[ply][1]) {
+                score = SCORE_KILLER - 1;
+            } else {
+                score = 0;
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the best-scored remaining move to position i (selection sort step) and returns it.
+     * Sorting lazily means moves after a cutoff are never sorted.
+     */
+    private int pickMove(MoveList moves, int ply, int i) {
+        int[] scores = moveScores[ply];
+        int best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (scores[j] > scores[best]) best = j;
+        }
+        if (best != i) {
+            moves.swap(i, best);
+            int tmp = scores[i];
+            scores[i] = scores[best];
+            scores[best] = tmp;
+        }
+        return moves.get(i);
+    }
+
+    /**
+     * Records a quiet move that caused a beta cutoff at this ply.
+     */
+    private void storeKiller(int ply, int move) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    /**
+     * Sets the principal variation at this ply to the move followed by the child's variation.
+     */
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        int childLength = pvLength[ply + 1];
+        for (int i = ply + 1; i < childLength; i++) {
+            pv[ply][i] = pv[ply + 1][i];
+        }
+        pvLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    /**
+     * Gets the milliseconds elapsed since a System.nanoTime() reading.
+     */
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000L;
+    }
+}
@@ -0,0 +1,74 @@
+package engine;
+
+/**
+ * Budget for one search: maximum depth, node count and thinking time.
+ * A limit of 0 means that resource is unlimited; the search stops at the first limit reached.
+ */
+public final class SearchLimits {
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long maxTimeMillis;
+
+    /**
+     * Creates a search budget.
+     * @param maxDepth Deepest iteration in plies (0 = up to the search's own maximum)
+     * @param maxNodes Node budget (0 = unlimited)
+     * @param maxTimeMillis Time budget in milliseconds (0 = unlimited)
+     */
+    public SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis) {
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxTimeMillis = maxTimeMillis;
+    }
+
+    /**
+     * Creates a budget limited only by depth.
+     * @param depth Deepest iteration in plies
+     * @return The limits
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    /**
+     * Creates a budget limited only by time.
+     * @param millis Thinking time in milliseconds
+     * @return The limits
+     */
+    public static SearchLimits time(long millis) {
+        return new SearchLimits(0, 0, millis);
+    }
+
+    /**
+     * Creates a budget limited only by node count.
+     * @param nodes Number of nodes to search
+     * @return The limits
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, nodes, 0);
+    }
+
+    /**
+     * Gets the depth limit.
+     * @return Deepest iteration in plies, or 0 for no limit
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Gets the node limit.
+     * @return Node budget, or 0 for no limit
+     */
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Gets the time limit.
+     * @return Time budget in milliseconds, or 0 for no limit
+     */
+    public long getMaxTimeMillis() {
+        return maxTimeMillis;
+    }
+}
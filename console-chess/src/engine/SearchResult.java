@@ -0,0 +1,137 @@
+package engine;
+
+import board.Move;
+import board.PackedMove;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a search: best move, score, principal variation and statistics.
+ * Moves are kept packed; the getters convert them for the CLI.
+ */
+public final class SearchResult {
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long timeMillis;
+    private final int[] principalVariation;
+
+    /**
+     * Creates a search result.
+     * @param bestMove The packed best move, or PackedMove.NONE if there is no legal move
+     * @param score The score in centipawns from the side to move's point of view
+     * @param depth The depth of the last completed iteration
+     * @param nodes The number of nodes searched
+     * @param timeMillis The time spent in milliseconds
+     * @param principalVariation The packed moves of the expected line, starting with the best move
+     */
+    public SearchResult(int bestMove, int score, int depth, long nodes, long timeMillis, int[] principalVariation) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.principalVariation = principalVariation;
+    }
+
+    /**
+     * Gets the best move.
+     * @return The best Move, or null if the side to move has no legal move
+     */
+    public Move getBestMove() {
+        return PackedMove.toMove(bestMove);
+    }
+
+    /**
+     * Gets the best move in packed form.
+     * @return The packed best move, or PackedMove.NONE
+     */
+    public int getPackedBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Gets the score.
+     * @return Centipawns from the side to move's point of view; mate scores are near ±Search.MATE
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the depth of the last completed iteration.
+     * @return The depth in plies
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the number of nodes searched.
+     * @return The node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the time spent searching.
+     * @return Elapsed milliseconds
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Gets the principal variation.
+     * @return The expected line as Moves, starting with the best move
+     */
+    public List<Move> getPrincipalVariation() {
+        List<Move> moves = new ArrayList<>(principalVariation.length);
+        for (int move : principalVariation) {
+            moves.add(PackedMove.toMove(move));
+        }
+        return moves;
+    }
+
+    /**
+     * Gets the principal variation in packed form.
+     * @return A copy of the packed moves of the expected line
+     */
+    public int[] getPackedPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    /**
+     * Formats the score for display (e.g., "+0.35" or "mate 3").
+     * @return The score as text
+     */
+    public String getScoreString() {
+        if (Search.isMateScore(score)) {
+            int plies = Search.MATE - Math.abs(score);
+            int moves = (plies + 1) / 2;
+            return score > 0 ? "mate " + moves : "mate -" + moves;
+        }
+        return String.format("%+.2f", score / 100.0);
+    }
+
+    /**
+     * Formats the result as one line: depth, score, nodes, speed and principal variation.
+     * @return A summary line
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth)
+          .append(" score ").append(getScoreString())
+          .append(" nodes ").append(nodes)
+          .append(" time ").append(timeMillis).append("ms")
+          .append(" nps ").append(timeMillis > 0 ? nodes * 1000 / timeMillis : nodes)
+          .append(" pv");
+        for (int move : principalVariation) {
+            sb.append(' ').append(PackedMove.toString(move));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,215 @@
+package engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results keyed by the board's Zobrist key.
+ * Entries are packed into a flat {@code long[]}: each slot is two longs, the entry data
+ * and the key XOR-ed with that data. A reader accepts a slot only if the two words
+ * still XOR back to its key, so a slot torn by two threads writing at once reads as a
+ * miss instead of a wrong result. This lets several search threads share one table
+ * without locks.
+ *
+ * Slots are grouped into buckets of four (one 64-byte cache line). A new entry
+ * replaces the slot holding the same position, otherwise an empty slot, otherwise the
+ * slot with the least depth, where entries left over from earlier searches count as shallower.
+ *
+ * Entry layout (low to high bits):
+ *   0-18  packed move (see PackedMove)
+ *   19-36 score (signed)
+ *   37-43 depth
+ *   44-45 bound (exact, lower or upper)
+ *   46-53 age (search generation)
+ */
+public final class TranspositionTable {
+    /** Table size used when none is given. */
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_UPPER = 3;
+
+    private static final int BUCKET_SLOTS = 4;
+    private static final int BYTES_PER_SLOT = 16;
+
+    private static final int MOVE_BITS = 19;
+    private static final int SCORE_SHIFT = 19;
+    private static final int SCORE_BITS = 18;
+    private static final int DEPTH_SHIFT = 37;
+    private static final int BOUND_SHIFT = 44;
+    private static final int AGE_SHIFT = 46;
+
+    private final long[] table;
+    private final int bucketMask;
+    private final int sizeMb;
+    private int age;
+
+    /**
+     * Creates a table of about the given size.
+     * The number of slots is rounded down to a power of two so that an index is a mask of the key.
+     * @param sizeMb Size in megabytes (at least 1)
+     */
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb < 1) throw new IllegalArgumentException("Table size must be at least 1 MB: " + sizeMb);
+        long slots = Long.highestOneBit((long) sizeMb * 1024 * 1024 / BYTES_PER_SLOT);
+        // A Java array holds at most 2^31 - 1 longs
+        slots = Math.min(slots, 1L << 29);
+        this.table = new long[(int) slots * 2];
+        this.bucketMask = (int) (slots / BUCKET_SLOTS) - 1;
+        this.sizeMb = (int) (slots * BYTES_PER_SLOT / (1024 * 1024));
+    }
+
+    /**
+     * Creates a table of the default size.
+     */
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * Gets the actual table size after rounding.
+     * @return The size in megabytes
+     */
+    public int getSizeMb() {
+        return sizeMb;
+    }
+
+    /**
+     * Gets the number of entries the table can hold.
+     * @return The slot count
+     */
+    public int getCapacity() {
+        return table.length / 2;
+    }
+
+    /**
+     * Starts a new search generation, so that entries from earlier searches are replaced first.
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        age = 0;
+    }
+
+    /**
+     * Looks up a position.
+     * @param key The position's Zobrist key
+     * @return The packed entry data, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        int base = bucketIndex(key);
+        for (int i = 0; i < BUCKET_SLOTS * 2; i += 2) {
+            long data = table[base + i];
+            if (data != 0 && (table[base + i + 1] ^ data) == key) {
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores a search result for a position.
+     * @param key The position's Zobrist key
+     * @param move The best move found, or PackedMove.NONE
+     * @param score The score, already adjusted with {@link Search} mate distance conventions
+     * @param depth The remaining depth the score was searched to
+     * @param bound BOUND_EXACT, BOUND_LOWER or BOUND_UPPER
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int base = bucketIndex(key);
+        int target = -1;
+        int worst = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET_SLOTS * 2; i += 2) {
+            long data = table[base + i];
+            if (data != 0 && (table[base + i + 1] ^ data) == key) {
+                // Same position: keep the old move if the new result has none
+                if (move == 0) move = move(data);
+                target = i;
+                break;
+            }
+            int value = (data == 0) ? Integer.MIN_VALUE : depth(data) - 8 * ((age - age(data)) & 0xFF);
+            if (value < worst) {
+                worst = value;
+                target = i;
+            }
+        }
+
+        long data = (move & ((1L << MOVE_BITS) - 1))
+                | ((score & ((1L << SCORE_BITS) - 1)) << SCORE_SHIFT)
+                | ((long) (depth & 0x7F) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) age << AGE_SHIFT);
+        table[base + target] = data;
+        table[base + target + 1] = key ^ data;
+    }
+
+    /**
+     * Estimates how full the table is from a sample of entries written in the current search.
+     * @return Filled slots per thousand
+     */
+    public int hashfull() {
+        int sample = Math.min(1000, table.length / 2);
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = table[i * 2];
+            if (data != 0 && age(data) == age) used++;
+        }
+        return used * 1000 / sample;
+    }
+
+    /**
+     * Gets the move stored in an entry.
+     * @param entry Packed entry data from {@link #probe(long)}
+     * @return The packed move, or PackedMove.NONE
+     */
+    public static int move(long entry) {
+        return (int) (entry & ((1L << MOVE_BITS) - 1));
+    }
+
+    /**
+     * Gets the score stored in an entry.
+     * @param entry Packed entry data from {@link #probe(long)}
+     * @return The score
+     */
+    public static int score(long entry) {
+        return (int) (entry << (64 - SCORE_SHIFT - SCORE_BITS) >> (64 - SCORE_BITS));
+    }
+
+    /**
+     * Gets the depth stored in an entry.
+     * @param entry Packed entry data from {@link #probe(long)}
+     * @return The remaining depth the score was searched to
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0x7F;
+    }
+
+    /**
+     * Gets the bound type stored in an entry.
+     * @param entry Packed entry data from {@link #probe(long)}
+     * @return BOUND_EXACT, BOUND_LOWER or BOUND_UPPER
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /**
+     * Gets the search generation that wrote an entry.
+     */
+    private static int age(long entry) {
+        return (int) (entry >>> AGE_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Gets the index of the first long of a key's bucket.
+     */
+    private int bucketIndex(long key) {
+        return ((int) key & bucketMask) * BUCKET_SLOTS * 2;
+    }
+}
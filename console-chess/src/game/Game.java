@@ -1,32 +1,38 @@
 package game;
 
 import board.Board;
+import board.Fen;
 import board.Move;
+import board.MoveGenerator;
+import board.MoveList;
+import board.PackedMove;
 import board.Square;
 import enums.Color;
 import enums.PieceType;
 import java.util.ArrayList;
 import java.util.List;
-import pieces.Bishop;
-import pieces.King;
-import pieces.Knight;
-import pieces.Pawn;
 import pieces.Piece;
-import pieces.Queen;
-import pieces.Rook;
 
 /**
  * Main game controller class that manages the chess game state.
  * Handles move execution, turn management, draw offers, resignations,
- * and game state detection (check, checkmate, stalemate).
+ * and game state detection (check, checkmate, stalemate, repetition and the move-count rules).
  */
 public class Game {
+    /** Plies without capture or pawn move after which a player may claim a draw (50-move rule). */
+    public static final int FIFTY_MOVE_PLIES = 100;
+    /** Plies without capture or pawn move after which the game is drawn automatically (75-move rule). */
+    public static final int SEVENTY_FIVE_MOVE_PLIES = 150;
+
     private Board board;
     private Color currentPlayer;
     private GameState state;
     private boolean drawOffered;
     private Color drawOfferedBy;
     private List<String> moveHistory = new ArrayList<>();
+    private String startFen;
+    /** Reused for the legality check and game state detection after every move. */
+    private final MoveList legalMoves = new MoveList();
 
     /**
      * Enum representing all possible game states.
@@ -37,7 +43,10 @@ public class Game {
         CHECKMATE,
         STALEMATE,
         DRAW,
-        RESIGNED
+        RESIGNED,
+        REPETITION,
+        FIFTY_MOVE_RULE,
+        SEVENTY_FIVE_MOVE_RULE
     }
 
     /**
@@ -45,43 +54,34 @@ public class Game {
      * White moves first.
      */
     public Game() {
+        this(Fen.START_POSITION);
+    }
+
+    /**
+     * Creates a new chess game from a position given in FEN.
+     * The side to move, castling rights, en passant square and move counters come from the FEN,
+     * and the game state is evaluated at once, so a position that is already mate or stalemate
+     * starts out finished.
+     * 
+     * @param fen The start position
+     * @throws IllegalArgumentException if the FEN string is malformed or the position is impossible
+     */
+    public Game(String fen) {
         this.board = new Board();
-        this.currentPlayer = Color.WHITE;
         this.state = GameState.ONGOING;
         this.drawOffered = false;
         this.drawOfferedBy = null;
-        initializeBoard();
+        this.currentPlayer = Fen.load(board, fen);
+        this.startFen = Fen.toFen(board);
+        updateGameState();
     }
 
     /**
-     * Sets up the initial chess position with all pieces in their starting squares.
+     * Gets the position the game started from.
+     * @return The start position in FEN
      */
-    private void initializeBoard() {
-        // Place pawns
-        for (int file = 0; file < 8; file++){
-            board.setPieceAt(new Square(file, 1), new Pawn(Color.WHITE, file, 1));
-            board.setPieceAt(new Square(file, 6), new Pawn(Color.BLACK, file, 6));
-        }
-
-        // Place white pieces
-        board.setPieceAt(new Square(0, 0), new Rook(Color.WHITE, 0, 0));
-        board.setPieceAt(new Square(7, 0), new Rook(Color.WHITE, 7, 0));
-        board.setPieceAt(new Square(1, 0), new Knight(Color.WHITE, 1, 0));
-        board.setPieceAt(new Square(6, 0), new Knight(Color.WHITE, 6, 0));
-        board.setPieceAt(new Square(2, 0), new Bishop(Color.WHITE, 2, 0));
-        board.setPieceAt(new Square(5, 0), new Bishop(Color.WHITE, 5, 0));
-        board.setPieceAt(new Square(3, 0), new Queen(Color.WHITE, 3, 0));
-        board.setPieceAt(new Square(4, 0), new King(Color.WHITE, 4, 0));
-
-        // Place black pieces
-        board.setPieceAt(new Square(0, 7), new Rook(Color.BLACK, 0, 7));
-        board.setPieceAt(new Square(7, 7), new Rook(Color.BLACK, 7, 7));
-        board.setPieceAt(new Square(1, 7), new Knight(Color.BLACK, 1, 7));
-        board.setPieceAt(new Square(6, 7), new Knight(Color.BLACK, 6, 7));
-        board.setPieceAt(new Square(2, 7), new Bishop(Color.BLACK, 2, 7));
-        board.setPieceAt(new Square(5, 7), new Bishop(Color.BLACK, 5, 7));
-        board.setPieceAt(new Square(3, 7), new Queen(Color.BLACK, 3, 7));
-        board.setPieceAt(new Square(4, 7), new King(Color.BLACK, 4, 7));
+    public String getStartFen() {
+        return startFen;
     }
 
     /**
@@ -102,10 +102,12 @@ public class Game {
 
     /**
      * Sets the current player (used when loading games).
+     * The board's side to move, and so its position key, follows the current player.
      * @param color The color to set as current player
      */
     public void setCurrentPlayer(Color color) {
         this.currentPlayer = color;
+        board.setSideToMove(color);
     }
 
     /**
@@ -157,6 +159,40 @@ public class Game {
         drawOfferedBy = null;
     }
 
+    /**
+     * Checks if the current player may claim a draw by threefold repetition
+     * or the 50-move rule.
+     * @return true if a draw claim would be accepted
+     */
+    public boolean canClaimDraw() {
+        if (isGameOver()) return false;
+        return board.getHalfmoveClock() >= FIFTY_MOVE_PLIES || board.getRepetitionCount() >= 3;
+    }
+
+    /**
+     * Claims a draw by threefold repetition or the 50-move rule, ending the game if the claim is valid.
+     * @return true if the claim was accepted
+     */
+    public boolean claimDraw() {
+        if (!canClaimDraw()) return false;
+        state = board.getRepetitionCount() >= 3 ? GameState.REPETITION : GameState.FIFTY_MOVE_RULE;
+        return true;
+    }
+
+    /**
+     * Checks if the game has ended.
+     * @return true if the game is over (checkmate, stalemate, any kind of draw, or resigned)
+     */
+    public boolean isGameOver() {
+        return state == GameState.CHECKMATE
+                || state == GameState.STALEMATE
+                || state == GameState.DRAW
+                || state == GameState.RESIGNED
+                || state == GameState.REPETITION
+                || state == GameState.FIFTY_MOVE_RULE
+                || state == GameState.SEVENTY_FIVE_MOVE_RULE;
+    }
+
     /**
      * Resigns the game for the current player.
      */
@@ -166,7 +202,7 @@ public class Game {
 
     /**
      * Attempts to make a move on the board.
-     * Validates the move, checks for self-check, applies the move,
+     * Validates the move against the legal move list, applies the move,
      * records it in SAN notation, and updates game state.
      * 
      * @param move The move to attempt
@@ -175,10 +211,7 @@ public class Game {
     public boolean makeMove(Move move) {
         if (move == null) return false;
 
-        if (state == GameState.CHECKMATE ||
-                state == GameState.STALEMATE ||
-                state == GameState.DRAW ||
-                state == GameState.RESIGNED) {
+        if (isGameOver()) {
             return false;
         }
 
@@ -191,24 +224,19 @@ public class Game {
             return false;
         }
 
+        int fromIndex = from.getRank() * 8 + from.getFile();
+        int toIndex = to.getRank() * 8 + to.getFile();
         boolean legal = false;
-        for (Move m : piece.getLegalMoves(board)) {
-            if (m.getTo().getFile() == to.getFile() &&
-                    m.getTo().getRank() == to.getRank()) {
+        MoveGenerator.generateLegalMoves(board, currentPlayer, legalMoves);
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int m = legalMoves.get(i);
+            if (PackedMove.from(m) == fromIndex && PackedMove.to(m) == toIndex) {
                 legal = true;
                 break;
             }
         }
         if (!legal) return false;
 
-        Board testBoard = board.clone();
-        testBoard.applyMove(move);
-        Square kingSquare = findKing(testBoard, currentPlayer);
-        if (kingSquare != null &&
-                testBoard.isSquareAttacked(kingSquare, getOpponentColor(currentPlayer))) {
-            return false;
-        }
-
         // Record move in SAN notation before applying
         String san = moveToSAN(move, piece);
         
@@ -229,16 +257,20 @@ public class Game {
 
     /**
      * Updates the game state after a move.
-     * Checks for check, checkmate, and stalemate conditions.
+     * Checks for check, checkmate, and stalemate conditions
+     * with a single legal move generation pass, then ends the game
+     * automatically on fivefold repetition or the 75-move rule.
+     * Checkmate on the move that reaches either limit still counts.
      */
     private void updateGameState() {
-        Square kingSquare = findKing(board, currentPlayer);
-        if (kingSquare == null) {
+        int king = board.getKingSquare(currentPlayer);
+        if (king < 0) {
             return;
         }
 
-        boolean inCheck = board.isSquareAttacked(kingSquare, getOpponentColor(currentPlayer));
-        boolean hasLegalMoves = hasAnyLegalMoves(currentPlayer);
+        boolean inCheck = board.isSquareAttacked(king, getOpponentColor(currentPlayer));
+        MoveGenerator.generateLegalMoves(board, currentPlayer, legalMoves);
+        boolean hasLegalMoves = !legalMoves.isEmpty();
 
         if (inCheck) {
             if (!hasLegalMoves) {
@@ -253,54 +285,13 @@ public class Game {
                 state = GameState.ONGOING;
             }
         }
-    }
 
-    /**
-     * Checks if a player has any legal moves available.
-     * Used to determine checkmate and stalemate.
-     * 
-     * @param color The color to check for legal moves
-     * @return true if the player has at least one legal move
-     */
-    private boolean hasAnyLegalMoves(Color color) {
-        for (int rank = 0; rank < 8; rank++) {
-            for (int file = 0; file < 8; file++) {
-                Square square = new Square(file, rank);
-                Piece piece = board.getPieceAt(square);
-                if (piece != null && piece.getColor() == color) {
-                    java.util.List<Move> moves = piece.getLegalMoves(board);
-                    for (Move move : moves) {
-                        Board testBoard = board.clone();
-                        testBoard.applyMove(move);
-                        Square kingSquare = findKing(testBoard, color);
-                        if (kingSquare != null && !testBoard.isSquareAttacked(kingSquare, getOpponentColor(color))) {
-                            return true;
-                        }
-                    }
-                }
-            }
+        if (state == GameState.CHECKMATE || state == GameState.STALEMATE) return;
+        if (board.getRepetitionCount() >= 5) {
+            state = GameState.REPETITION;
+        } else if (board.getHalfmoveClock() >= SEVENTY_FIVE_MOVE_PLIES) {
+            state = GameState.SEVENTY_FIVE_MOVE_RULE;
         }
-        return false;
-    }
-
-    /**
-     * Finds the king of the specified color on the board.
-     * 
-     * @param board The board to search
-     * @param color The color of the king to find
-     * @return The Square containing the king, or null if not found
-     */
-    private Square findKing(Board board, Color color) {
-        for (int rank = 0; rank < 8; rank++) {
-            for (int file = 0; file < 8; file++) {
-                Square square = new Square(file, rank);
-                Piece piece = board.getPieceAt(square);
-                if (piece != null && piece.getType() == PieceType.KING && piece.getColor() == color) {
-                    return square;
-                }
-            }
-        }
-        return null;
     }
 
     /**
@@ -339,6 +330,18 @@ public class Game {
         this.moveHistory = new ArrayList<>(history);
     }
 
+    /**
+     * Takes over moves played straight on the board (used when loading games).
+     * Sets the move history, follows the board's side to move and works out the
+     * game state of the final position.
+     * @param history The moves played on the board, in SAN notation
+     */
+    public void replayed(List<String> history) {
+        this.moveHistory = new ArrayList<>(history);
+        this.currentPlayer = board.getSideToMove();
+        updateGameState();
+    }
+
     /**
      * Converts a move to Standard Algebraic Notation (SAN).
      * Handles piece notation, captures, castling, and promotions.
@@ -347,6 +350,34 @@ public class Game {
      * @param piece The piece making the move
      * @return The move in SAN format (e.g., "Nf3", "O-O", "exd5")
      */
+    /**
+     * Appends the origin file, rank or both when another piece of the same type could
+     * also move to the destination. Uses the legal moves generated for the current position.
+     */
+    private void appendOrigin(StringBuilder sb, Move move, PieceType type) {
+        int from = move.getFrom().getRank() * 8 + move.getFrom().getFile();
+        int to = move.getTo().getRank() * 8 + move.getTo().getFile();
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int m = legalMoves.get(i);
+            int other = PackedMove.from(m);
+            if (PackedMove.to(m) != to || other == from || board.getPieceAt(other).getType() != type) continue;
+            ambiguous = true;
+            if ((other & 7) == (from & 7)) sameFile = true;
+            if ((other >>> 3) == (from >>> 3)) sameRank = true;
+        }
+        if (!ambiguous) return;
+        if (!sameFile) {
+            sb.append((char) ('a' + (from & 7)));
+        } else if (!sameRank) {
+            sb.append((char) ('1' + (from >>> 3)));
+        } else {
+            sb.append((char) ('a' + (from & 7))).append((char) ('1' + (from >>> 3)));
+        }
+    }
+
     private String moveToSAN(Move move, Piece piece) {
         Square from = move.getFrom();
         Square to = move.getTo();
@@ -365,6 +396,7 @@ public class Game {
                 case KNIGHT -> 'N';
                 default -> '?';
             });
+            appendOrigin(sb, move, piece.getType());
         }
 
         Piece target = board.getPieceAt(to);
@@ -59,7 +59,7 @@ public class MoveParser {
      */
     private static Move parseCastling(Board board, Color color, boolean queenside) {
         int homeRank = (color == Color.WHITE) ? 0 : 7;
-        Square kingFrom = new Square(4, homeRank);
+        Square kingFrom = Square.of(4, homeRank);
         
         // Check if king is at starting position
         Piece king = board.getPieceAt(kingFrom);
@@ -70,12 +70,12 @@ public class MoveParser {
         // Determine target square for the king
         Square kingTo;
         if (queenside) {
-            kingTo = new Square(2, homeRank); // c1 or c8
+            kingTo = Square.of(2, homeRank); // c1 or c8
         } else {
-            kingTo = new Square(6, homeRank); // g1 or g8
+            kingTo = Square.of(6, homeRank); // g1 or g8
         }
 
-        return new Move(kingFrom, kingTo);
+        return Move.of(kingFrom, kingTo);
     }
 
     /**
@@ -89,7 +89,7 @@ public class MoveParser {
         Square to   = Square.fromString(parts[1]);
 
         if (from == null || to == null) return null;
-        return new Move(from, to);
+        return Move.of(from, to);
     }
 
     /**
@@ -127,23 +127,16 @@ public class MoveParser {
         Square target = Square.fromString(input.substring(1));
         if (type == null || target == null) return null;
 
-        // Search for a piece of the right type that can reach the target
-        for (int r = 0; r < 8; r++) {
-            for (int f = 0; f < 8; f++) {
-                Square from = new Square(f, r);
-                Piece p = board.getPieceAt(from);
+        // Only the pieces of the right type are visited, straight from their bitboard
+        for (long pieces = board.getPieces(color, type); pieces != 0; pieces &= pieces - 1) {
+            Piece p = board.getPieceAt(Long.numberOfTrailingZeros(pieces));
 
-                if (p == null) continue;
-                if (p.getColor() != color) continue;
-                if (p.getType() != type) continue;
+            List<Move> moves = p.getLegalMoves(board);
+            if (moves == null) continue;
 
-                List<Move> moves = p.getLegalMoves(board);
-                if (moves == null) continue;
-
-                for (Move m : moves) {
-                    if (m.getTo().equals(target)) {
-                        return m;
-                    }
+            for (Move m : moves) {
+                if (m.getTo().equals(target)) {
+                    return m;
                 }
             }
         }
@@ -165,23 +158,16 @@ public class MoveParser {
         Square target = Square.fromString(input);
         if (target == null) return null;
 
-        // Search for a pawn that can reach the target
-        for (int r = 0; r < 8; r++) {
-            for (int f = 0; f < 8; f++) {
-                Square from = new Square(f, r);
-                Piece p = board.getPieceAt(from);
-
-                if (p == null) continue;
-                if (p.getColor() != color) continue;
-                if (p.getType() != PieceType.PAWN) continue;
+        // Only this side's pawns are visited, straight from their bitboard
+        for (long pieces = board.getPieces(color, PieceType.PAWN); pieces != 0; pieces &= pieces - 1) {
+            Piece p = board.getPieceAt(Long.numberOfTrailingZeros(pieces));
 
-                List<Move> moves = p.getLegalMoves(board);
-                if (moves == null) continue;
+            List<Move> moves = p.getLegalMoves(board);
+            if (moves == null) continue;
 
-                for (Move m : moves) {
-                    if (m.getTo().equals(target)) {
-                        return m;
-                    }
+            for (Move m : moves) {
+                if (m.getTo().equals(target)) {
+                    return m;
                 }
             }
         }
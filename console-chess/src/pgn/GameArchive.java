@@ -0,0 +1,128 @@
+package pgn;
+
+import board.Board;
+import board.MoveGenerator;
+import board.MoveList;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary game archive format, shared by {@link GameArchiveWriter} and {@link GameArchiveReader}.
+ *
+ * Layout of an archive file (all fixed-width numbers big-endian):
+ * <pre>
+ *   header      MAGIC (int)
+ *   games       one record per game, back to back
+ *   dictionary  varint count, then each string as varint byte length + UTF-8 bytes
+ *   index       one long per game: file offset of its record
+ *   trailer     dictionary offset (long), index offset (long), game count (long), MAGIC (int)
+ * </pre>
+ * A game record is: varint tag count, then per tag a varint dictionary id for the name and
+ * one for the value; one result byte (see {@link #resultCode}); varint ply count; then one
+ * byte per ply holding the move's index in the canonically sorted legal move list.
+ * Tag names and values are stored once in the dictionary however many games use them.
+ *
+ * Moves are sorted by from square, to square and promotion piece before indexing, so the
+ * encoding does not depend on the order the move generator happens to produce.
+ * A game that does not start from the initial position keeps its FEN tag, which is
+ * where decoding starts from.
+ */
+public final class GameArchive {
+    /** "CGA1": identifies an archive and its format version. */
+    public static final int MAGIC = 0x43474131;
+    /** Size of the trailer in bytes. */
+    public static final int TRAILER_SIZE = 8 + 8 + 8 + 4;
+
+    /** Results in the order of their codes. */
+    private static final String[] RESULTS = {"*", "1-0", "0-1", "1/2-1/2"};
+    /** Bits of a packed move that identify it: from, to and promotion. */
+    private static final int MOVE_KEY_MASK = (1 << 15) - 1;
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private GameArchive() {}
+
+    /**
+     * Gets the code stored for a result.
+     * @param result "1-0", "0-1", "1/2-1/2" or anything else for an unfinished game
+     * @return The code 0-3
+     */
+    public static int resultCode(String result) {
+        for (int i = 1; i < RESULTS.length; i++) {
+            if (RESULTS[i].equals(result)) return i;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the result for a stored code.
+     * @param code The result code
+     * @return The result marker, "*" for unknown codes
+     */
+    public static String result(int code) {
+        return code > 0 && code < RESULTS.length ? RESULTS[code] : RESULTS[0];
+    }
+
+    /**
+     * Generates the legal moves for the side to move in canonical order.
+     * @param board The position
+     * @param moves The list to fill
+     */
+    static void sortedLegalMoves(Board board, MoveList moves) {
+        MoveGenerator.generateLegalMoves(board, board.getSideToMove(), moves);
+        // Insertion sort: lists are short and often nearly ordered already
+        for (int i = 1; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int key = move & MOVE_KEY_MASK;
+            int j = i - 1;
+            while (j >= 0 && (moves.get(j) & MOVE_KEY_MASK) > key) {
+                moves.set(j + 1, moves.get(j));
+                j--;
+            }
+            moves.set(j + 1, move);
+        }
+    }
+
+    /**
+     * Appends an unsigned LEB128 varint.
+     * @param out The buffer
+     * @param value A non-negative value
+     */
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     * @param in The buffer, positioned at the varint
+     * @return The value
+     */
+    static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+            shift += 7;
+            if (shift > 63) throw new IllegalStateException("Malformed varint in game archive");
+        }
+    }
+
+    /**
+     * Appends a string as varint length and UTF-8 bytes.
+     * @param out The buffer
+     * @param s The string
+     */
+    static void writeString(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,334 @@
+package pgn;
+
+import board.Board;
+import board.MoveList;
+import board.PackedMove;
+import game.Game;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Reads games from a binary archive (format described in {@link GameArchive}) by
+ * memory-mapping the file. Opening reads only the trailer and the dictionary's entry
+ * offsets; the offset index stays in the mapping and a game's record is touched only
+ * when that game is asked for, so jumping to game N or paging through a range costs
+ * the same whatever the size of the archive. Moves are decoded by replaying the stored
+ * legal-move indices, with no SAN parsing.
+ *
+ * Files larger than one mapping can hold are mapped in overlapping segments.
+ * A reader may be shared between threads; every read works on its own buffer views and board.
+ * Games are numbered from 1, like {@link PGNGame#getNumber()}.
+ */
+public class GameArchiveReader implements Closeable {
+    /** Bytes of game records mapped per segment. */
+    private static final long SEGMENT_SIZE = 1L << 30;
+    /** Extra bytes mapped past each segment so records that cross its end can be read in place. */
+    private static final long SEGMENT_OVERLAP = 1L << 20;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final LongBuffer index;
+    private final ByteBuffer dictionaryBytes;
+    /** Position and length of every dictionary entry's UTF-8 bytes in dictionaryBytes. */
+    private final int[] dictionaryStarts;
+    private final int[] dictionaryLengths;
+    private final String[] dictionaryCache;
+    private final long dictionaryOffset;
+    private final long gameCount;
+
+    /**
+     * Opens and maps an archive file.
+     * @param path The file to read
+     * @throws IOException if the file cannot be read or is not an archive
+     */
+    public GameArchiveReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < 4 + GameArchive.TRAILER_SIZE) throw new IOException("Not a game archive: " + path);
+            ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - GameArchive.TRAILER_SIZE,
+                    GameArchive.TRAILER_SIZE);
+            dictionaryOffset = trailer.getLong();
+            long indexOffset = trailer.getLong();
+            gameCount = trailer.getLong();
+            if (trailer.getInt() != GameArchive.MAGIC
+                    || channel.map(FileChannel.MapMode.READ_ONLY, 0, 4).getInt() != GameArchive.MAGIC
+                    || indexOffset + gameCount * 8 != size - GameArchive.TRAILER_SIZE) {
+                throw new IOException("Not a game archive: " + path);
+            }
+            if (gameCount * 8 > Integer.MAX_VALUE || indexOffset - dictionaryOffset > Integer.MAX_VALUE) {
+                throw new IOException("Game archive index or dictionary too large to map: " + path);
+            }
+
+            index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, gameCount * 8).asLongBuffer();
+            dictionaryBytes = channel.map(FileChannel.MapMode.READ_ONLY, dictionaryOffset, indexOffset - dictionaryOffset);
+            ByteBuffer dict = dictionaryBytes.duplicate();
+            int entries = (int) GameArchive.readVarint(dict);
+            dictionaryStarts = new int[entries];
+            dictionaryLengths = new int[entries];
+            for (int i = 0; i < entries; i++) {
+                dictionaryLengths[i] = (int) GameArchive.readVarint(dict);
+                dictionaryStarts[i] = dict.position();
+                dict.position(dict.position() + dictionaryLengths[i]);
+            }
+            dictionaryCache = new String[entries];
+
+            int segmentCount = (int) ((dictionaryOffset + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long start = i * SEGMENT_SIZE;
+                long length = Math.min(SEGMENT_SIZE + SEGMENT_OVERLAP, dictionaryOffset - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of games in the archive.
+     * @return The game count
+     */
+    public long size() {
+        return gameCount;
+    }
+
+    /**
+     * Gets the file offset of a game's record from the index.
+     * @param number The game number, from 1
+     * @return Byte offset of the record in the archive file
+     */
+    public long getOffset(long number) {
+        checkNumber(number);
+        return index.get((int) (number - 1));
+    }
+
+    /**
+     * Reads the tags of one game without decoding its moves.
+     * @param number The game number, from 1
+     * @return The tag pairs in their original order
+     */
+    public Map<String, String> readTags(long number) {
+        return readTags(record(number));
+    }
+
+    /**
+     * Gets the UTF-8 bytes of one tag value without copying or decoding them.
+     * @param number The game number, from 1
+     * @param name The tag name (e.g., "White")
+     * @return A read-only view of the value's bytes, or null if the game has no such tag
+     */
+    public ByteBuffer getTagBytes(long number, String name) {
+        ByteBuffer in = record(number);
+        int count = (int) GameArchive.readVarint(in);
+        for (int i = 0; i < count; i++) {
+            int nameId = (int) GameArchive.readVarint(in);
+            int valueId = (int) GameArchive.readVarint(in);
+            if (dictionaryString(nameId).equals(name)) return dictionaryEntry(valueId);
+        }
+        return null;
+    }
+
+    /**
+     * Reads one game and converts its moves back to SAN.
+     * @param number The game number, from 1
+     * @return The game
+     */
+    public PGNGame read(long number) {
+        ByteBuffer in = record(number);
+        Map<String, String> tags = readTags(in);
+        String result = GameArchive.result(in.get());
+        Board board = new Board();
+        List<String> san = decodeSan(in, tags, board);
+        return new PGNGame(number, tags, san, result);
+    }
+
+    /**
+     * Streams a range of games in order, decoding each one only when the stream reaches it.
+     * @param first The first game number, from 1
+     * @param last The last game number (inclusive)
+     * @return The games
+     */
+    public Stream<PGNGame> games(long first, long last) {
+        checkNumber(first);
+        checkNumber(last);
+        return LongStream.rangeClosed(first, last).mapToObj(this::read);
+    }
+
+    /**
+     * Reads the moves of one game as packed moves, ready to be made on a board
+     * set up at the game's start position.
+     * @param number The game number, from 1
+     * @return The packed moves in order
+     */
+    public int[] readMoves(long number) {
+        ByteBuffer in = record(number);
+        Map<String, String> tags = readTags(in);
+        in.get();
+        int[] result = new int[(int) GameArchive.readVarint(in)];
+        Board board = new Board();
+        MoveList moves = new MoveList();
+        PGNParser.setupPosition(board, tags);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = nextMove(in, board, moves);
+            board.makeMove(result[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Replays one game into a {@link Game}, ready to continue playing or browse in the CLI.
+     * The game starts from the record's [FEN] tag if it has one. The moves are played on the board
+     * and the game state is worked out once at the end, so a game that ended in mate or stalemate
+     * comes back finished, and one that runs past an automatic draw still loads.
+     * @param number The game number, from 1
+     * @return A game at the final position, with the SAN move history filled in
+     */
+    public Game toGame(long number) {
+        ByteBuffer in = record(number);
+        Map<String, String> tags = readTags(in);
+        in.get();
+        Game game = new Game(PGNParser.startFen(tags));
+        Board board = game.getBoard();
+        int plies = (int) GameArchive.readVarint(in);
+        List<String> san = new ArrayList<>(plies);
+        PGNParser parser = new PGNParser();
+        MoveList moves = new MoveList();
+        for (int i = 0; i < plies; i++) {
+            int move = nextMove(in, board, moves);
+            san.add(parser.moveToSAN(board, PackedMove.toMove(move), board.getSideToMove()));
+            board.makeMove(move);
+        }
+        game.replayed(san);
+        return game;
+    }
+
+    /**
+     * Closes the file. The mappings are released once they are no longer referenced.
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Plays the moves of a record from the game's start position, converting each to SAN.
+     * @param in The record, positioned at the ply count
+     */
+    private List<String> decodeSan(ByteBuffer in, Map<String, String> tags, Board board) {
+        int plies = (int) GameArchive.readVarint(in);
+        List<String> san = new ArrayList<>(plies);
+        PGNParser parser = new PGNParser();
+        MoveList moves = new MoveList();
+        PGNParser.setupPosition(board, tags);
+        for (int i = 0; i < plies; i++) {
+            int move = nextMove(in, board, moves);
+            san.add(parser.moveToSAN(board, PackedMove.toMove(move), board.getSideToMove()));
+            board.makeMove(move);
+        }
+        return san;
+    }
+
+    /**
+     * Decodes the next stored move index against the current board.
+     */
+    private static int nextMove(ByteBuffer in, Board board, MoveList moves) {
+        int index = in.get() & 0xFF;
+        GameArchive.sortedLegalMoves(board, moves);
+        if (index >= moves.size()) throw new IllegalStateException("Corrupt game archive: move index out of range");
+        return moves.get(index);
+    }
+
+    /**
+     * Reads the tag section at the start of a record.
+     */
+    private Map<String, String> readTags(ByteBuffer in) {
+        int count = (int) GameArchive.readVarint(in);
+        Map<String, String> tags = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = dictionaryString((int) GameArchive.readVarint(in));
+            tags.put(name, dictionaryString((int) GameArchive.readVarint(in)));
+        }
+        return tags;
+    }
+
+    /**
+     * Gets a dictionary entry as a String, decoding it on first use.
+     * Racing threads may both decode an entry; they produce equal strings.
+     */
+    private String dictionaryString(int id) {
+        String s = dictionaryCache[id];
+        if (s == null) {
+            ByteBuffer bytes = dictionaryEntry(id);
+            s = StandardCharsets.UTF_8.decode(bytes).toString();
+            dictionaryCache[id] = s;
+        }
+        return s;
+    }
+
+    /**
+     * Gets a read-only view of the UTF-8 bytes of a dictionary entry.
+     */
+    private ByteBuffer dictionaryEntry(int id) {
+        ByteBuffer view = dictionaryBytes.asReadOnlyBuffer();
+        view.position(dictionaryStarts[id]);
+        view.limit(dictionaryStarts[id] + dictionaryLengths[id]);
+        return view.slice();
+    }
+
+    /**
+     * Gets a view of the whole record of one game, positioned at its start.
+     */
+    private ByteBuffer record(long number) {
+        checkNumber(number);
+        int i = (int) (number - 1);
+        long start = index.get(i);
+        long end = i + 1 < gameCount ? index.get(i + 1) : dictionaryOffset;
+        int length = (int) (end - start);
+        int segment = (int) (start / SEGMENT_SIZE);
+        long offsetInSegment = start - segment * SEGMENT_SIZE;
+        MappedByteBuffer mapped = segments[segment];
+        if (offsetInSegment + length <= mapped.capacity()) {
+            ByteBuffer view = mapped.duplicate();
+            view.position((int) offsetInSegment);
+            view.limit((int) offsetInSegment + length);
+            return view.slice();
+        }
+        // A record longer than the overlap that crosses a segment end: read it with a copy
+        ByteBuffer copy = ByteBuffer.allocate(length);
+        try {
+            while (copy.hasRemaining()) {
+                if (channel.read(copy, start + copy.position()) < 0) throw new IOException("Game archive is truncated");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        copy.flip();
+        return copy;
+    }
+
+    /**
+     * Checks that a game number is in range.
+     */
+    private void checkNumber(long number) {
+        if (number < 1 || number > gameCount) {
+            throw new IndexOutOfBoundsException("Game " + number + " of " + gameCount);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package pgn;
+
+import board.Board;
+import board.MoveList;
+import board.PackedMove;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes games to a binary archive (format described in {@link GameArchive}).
+ * Games are appended one at a time; the tag dictionary and the offset index are
+ * kept in memory and written when the archive is closed.
+ */
+public class GameArchiveWriter implements Closeable {
+    private final OutputStream out;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(512);
+    private final ByteArrayOutputStream plies = new ByteArrayOutputStream(256);
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    private final Board board = new Board();
+    private final MoveList moves = new MoveList();
+    private long[] offsets = new long[1024];
+    private long gameCount;
+    private long position;
+    private boolean closed;
+
+    /**
+     * Creates an archive file, replacing any existing file.
+     * @param path The file to write
+     * @throws IOException if the file cannot be created
+     */
+    public GameArchiveWriter(Path path) throws IOException {
+        this.out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16);
+        writeInt(GameArchive.MAGIC);
+    }
+
+    /**
+     * Appends a parsed PGN game.
+     * @param game The game
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a move is illegal or the FEN tag is malformed
+     */
+    public void add(PGNGame game) throws IOException {
+        add(game.getTags(), game.getMoves(), game.getResult());
+    }
+
+    /**
+     * Appends a game given as tags and SAN moves. The moves are replayed from the start
+     * position to turn each one into its index among the legal moves.
+     * @param tags The tag pairs
+     * @param sanMoves The SAN moves of the main line
+     * @param result The result marker
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if a move is illegal or the FEN tag is malformed
+     */
+    public void add(Map<String, String> tags, List<String> sanMoves, String result) throws IOException {
+        if (closed) throw new IllegalStateException("Archive is closed");
+        // Encode the moves first, so a game with an illegal move leaves nothing behind
+        plies.reset();
+        PGNParser.setupPosition(board, tags);
+        for (int ply = 0; ply < sanMoves.size(); ply++) {
+            String san = sanMoves.get(ply);
+            int move = SANResolver.resolve(board, san, board.getSideToMove());
+            if (move == PackedMove.NONE) {
+                throw new IllegalArgumentException("Illegal move " + (ply + 1) + ": " + san);
+            }
+            GameArchive.sortedLegalMoves(board, moves);
+            plies.write(moves.indexOf(move));
+            board.makeMove(move);
+        }
+
+        record.reset();
+        GameArchive.writeVarint(record, tags.size());
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            GameArchive.writeVarint(record, dictionaryId(tag.getKey()));
+            GameArchive.writeVarint(record, dictionaryId(tag.getValue()));
+        }
+        record.write(GameArchive.resultCode(result));
+        GameArchive.writeVarint(record, sanMoves.size());
+        plies.writeTo(record);
+
+        if (gameCount == offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        offsets[(int) gameCount++] = position;
+        record.writeTo(out);
+        position += record.size();
+    }
+
+    /**
+     * Gets the number of games written so far.
+     * @return The game count
+     */
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Gets the number of bytes written so far.
+     * @return The size of the archive up to the last game, before the dictionary and index
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Writes the dictionary, index and trailer, and closes the file.
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            long dictionaryOffset = position;
+            record.reset();
+            GameArchive.writeVarint(record, dictionary.size());
+            for (String s : dictionary) {
+                GameArchive.writeString(record, s);
+            }
+            record.writeTo(out);
+            position += record.size();
+
+            long indexOffset = position;
+            for (int i = 0; i < gameCount; i++) {
+                writeLong(offsets[i]);
+            }
+            writeLong(dictionaryOffset);
+            writeLong(indexOffset);
+            writeLong(gameCount);
+            writeInt(GameArchive.MAGIC);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Gets the dictionary id of a string, adding it if it is new.
+     */
+    private int dictionaryId(String s) {
+        Integer id = dictionaryIds.get(s);
+        if (id == null) {
+            id = dictionary.size();
+            dictionary.add(s);
+            dictionaryIds.put(s, id);
+        }
+        return id;
+    }
+
+    private void writeLong(long v) throws IOException {
+        writeInt((int) (v >>> 32));
+        writeInt((int) v);
+    }
+
+    private void writeInt(int v) throws IOException {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+        position += 4;
+    }
+}
@@ -0,0 +1,342 @@
+package pgn;
+
+import board.Board;
+import board.MoveList;
+import board.PackedMove;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opening explorer: how often each move was played from a position within the first plies
+ * of a set of games, and how those games ended.
+ *
+ * Statistics are kept per edge (position, move) in an open-addressing hash table of parallel
+ * primitive arrays, keyed by the position's Zobrist key and the move's from, to and promotion
+ * bits. Looking up a position probes the table once per legal move, so it is instant whatever
+ * the number of games, and positions reached by different move orders share their statistics.
+ * Games can be added at any time, including after the tree was loaded from disk.
+ *
+ * File layout (big-endian): MAGIC (int), max plies (int), game count (long), edge count (int),
+ * then per edge the position key (long), the move bits (int) and the White win, draw and
+ * Black win counts (three ints).
+ */
+public class OpeningTree {
+    /** "COT1": identifies an opening tree file and its format version. */
+    public static final int MAGIC = 0x434F5431;
+    /** Plies per game added to the tree when none is given. */
+    public static final int DEFAULT_MAX_PLIES = 24;
+
+    /** Bits of a packed move that identify it: from, to and promotion. */
+    private static final int MOVE_KEY_MASK = (1 << 15) - 1;
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private final int maxPlies;
+    private final Board board = new Board();
+    private long[] keys;
+    private int[] moves;
+    /** White wins, draws and Black wins of slot i at 3i, 3i+1 and 3i+2. */
+    private int[] results;
+    private int mask;
+    private int edgeCount;
+    private long gameCount;
+
+    /**
+     * Creates an empty tree.
+     * @param maxPlies Number of plies of each game to add
+     */
+    public OpeningTree(int maxPlies) {
+        if (maxPlies < 1) throw new IllegalArgumentException("Ply limit must be positive: " + maxPlies);
+        this.maxPlies = maxPlies;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty tree with the default ply limit.
+     */
+    public OpeningTree() {
+        this(DEFAULT_MAX_PLIES);
+    }
+
+    /**
+     * Adds the opening of a parsed PGN game. Games without a decisive or drawn result are skipped.
+     * @param game The game
+     * @return true if the game was added
+     * @throws IllegalArgumentException if a move within the ply limit is illegal or the FEN tag is malformed
+     */
+    public boolean add(PGNGame game) {
+        int outcome = outcome(game.getTags(), game.getResult());
+        if (outcome < 0) return false;
+        // Resolve all the moves before counting any, so an illegal game leaves nothing behind
+        List<String> san = game.getMoves();
+        int plies = Math.min(maxPlies, san.size());
+        int[] packed = new int[plies];
+        PGNParser.setupPosition(board, game.getTags());
+        for (int ply = 0; ply < plies; ply++) {
+            packed[ply] = SANResolver.resolve(board, san.get(ply), board.getSideToMove());
+            if (packed[ply] == PackedMove.NONE) {
+                throw new IllegalArgumentException("Illegal move " + (ply + 1) + ": " + san.get(ply));
+            }
+            board.makeMove(packed[ply]);
+        }
+        record(game.getTags(), packed, outcome);
+        return true;
+    }
+
+    /**
+     * Adds the opening of a game given as packed moves, as read from a {@link GameArchiveReader}.
+     * Games without a decisive or drawn result are skipped.
+     * @param tags The game's tags, for the FEN and Result tags
+     * @param packedMoves The packed moves in order
+     * @param result The result marker, used when there is no Result tag
+     * @return true if the game was added
+     */
+    public boolean add(Map<String, String> tags, int[] packedMoves, String result) {
+        int outcome = outcome(tags, result);
+        if (outcome < 0) return false;
+        record(tags, packedMoves, outcome);
+        return true;
+    }
+
+    /**
+     * Gets the statistics of every move played from a position, most played first.
+     * @param position The position
+     * @return The moves found in the tree; empty if the position was never reached
+     */
+    public List<MoveStats> getStats(Board position) {
+        MoveList legal = new MoveList();
+        GameArchive.sortedLegalMoves(position, legal);
+        long key = position.getKey();
+        List<MoveStats> stats = new ArrayList<>();
+        for (int i = 0; i < legal.size(); i++) {
+            int move = legal.get(i);
+            int slot = find(key, move & MOVE_KEY_MASK);
+            if (moves[slot] != 0) {
+                stats.add(new MoveStats(move, results[3 * slot], results[3 * slot + 1], results[3 * slot + 2]));
+            }
+        }
+        stats.sort((a, b) -> Long.compare(b.getGames(), a.getGames()));
+        return stats;
+    }
+
+    /**
+     * Gets the number of plies of each game that are added.
+     * @return The ply limit
+     */
+    public int getMaxPlies() {
+        return maxPlies;
+    }
+
+    /**
+     * Gets the number of games added.
+     * @return The game count
+     */
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Gets the number of distinct (position, move) pairs in the tree.
+     * @return The edge count
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Writes the tree to a file, replacing it only once the new file is complete.
+     * @param path The file to write
+     * @throws IOException if writing fails
+     */
+    public void save(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(maxPlies);
+            out.writeLong(gameCount);
+            out.writeInt(edgeCount);
+            for (int slot = 0; slot < moves.length; slot++) {
+                if (moves[slot] == 0) continue;
+                out.writeLong(keys[slot]);
+                out.writeInt(moves[slot]);
+                out.writeInt(results[3 * slot]);
+                out.writeInt(results[3 * slot + 1]);
+                out.writeInt(results[3 * slot + 2]);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a tree written by {@link #save}.
+     * @param path The file to read
+     * @return The tree, ready for lookups and further games
+     * @throws IOException if the file cannot be read or is not an opening tree
+     */
+    public static OpeningTree load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not an opening tree: " + path);
+            OpeningTree tree = new OpeningTree(in.readInt());
+            tree.gameCount = in.readLong();
+            int edges = in.readInt();
+            tree.allocate(Integer.highestOneBit(Math.max(INITIAL_CAPACITY, edges * 2)) * 2);
+            for (int i = 0; i < edges; i++) {
+                long key = in.readLong();
+                int slot = tree.insert(key, in.readInt());
+                tree.results[3 * slot] = in.readInt();
+                tree.results[3 * slot + 1] = in.readInt();
+                tree.results[3 * slot + 2] = in.readInt();
+            }
+            return tree;
+        }
+    }
+
+    /**
+     * Replays the first plies of a game from its start position, counting the outcome on each move.
+     */
+    private void record(Map<String, String> tags, int[] packedMoves, int outcome) {
+        PGNParser.setupPosition(board, tags);
+        int plies = Math.min(maxPlies, packedMoves.length);
+        for (int ply = 0; ply < plies; ply++) {
+            int slot = insert(board.getKey(), packedMoves[ply] & MOVE_KEY_MASK);
+            results[3 * slot + outcome]++;
+            board.makeMove(packedMoves[ply]);
+        }
+        gameCount++;
+    }
+
+    /**
+     * Gets the index of a game's outcome in the result counts, from its Result tag or result marker.
+     * @return 0 for a White win, 1 for a draw, 2 for a Black win, -1 if unfinished
+     */
+    private static int outcome(Map<String, String> tags, String result) {
+        String tag = tags.get("Result");
+        int code = GameArchive.resultCode(tag != null ? tag : result);
+        return switch (code) {
+            case 1 -> 0;
+            case 3 -> 1;
+            case 2 -> 2;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Gets the slot of an edge, adding it with zero counts if it is new.
+     */
+    private int insert(long key, int move) {
+        int slot = find(key, move);
+        if (moves[slot] != 0) return slot;
+        if (edgeCount + 1 > moves.length / 2) {
+            grow();
+            slot = find(key, move);
+        }
+        keys[slot] = key;
+        moves[slot] = move;
+        edgeCount++;
+        return slot;
+    }
+
+    /**
+     * Finds the slot holding an edge, or the empty slot where it belongs (linear probing).
+     * A move of 0 marks an empty slot; no move goes from a1 to a1.
+     */
+    private int find(long key, int move) {
+        long h = (key ^ move) * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h >>> 32) & mask;
+        while (moves[slot] != 0 && (keys[slot] != key || moves[slot] != move)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the table and reinserts every edge.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldMoves = moves;
+        int[] oldResults = results;
+        allocate(oldMoves.length * 2);
+        for (int i = 0; i < oldMoves.length; i++) {
+            if (oldMoves[i] == 0) continue;
+            int slot = find(oldKeys[i], oldMoves[i]);
+            keys[slot] = oldKeys[i];
+            moves[slot] = oldMoves[i];
+            System.arraycopy(oldResults, 3 * i, results, 3 * slot, 3);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        moves = new int[capacity];
+        results = new int[capacity * 3];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Statistics of one move from a position.
+     */
+    public static final class MoveStats {
+        private final int move;
+        private final int whiteWins;
+        private final int draws;
+        private final int blackWins;
+
+        private MoveStats(int move, int whiteWins, int draws, int blackWins) {
+            this.move = move;
+            this.whiteWins = whiteWins;
+            this.draws = draws;
+            this.blackWins = blackWins;
+        }
+
+        /**
+         * Gets the move, with the flags the board expects.
+         * @return The packed move
+         */
+        public int getMove() {
+            return move;
+        }
+
+        /**
+         * Gets the number of games won by White after this move.
+         * @return The count
+         */
+        public int getWhiteWins() {
+            return whiteWins;
+        }
+
+        /**
+         * Gets the number of drawn games after this move.
+         * @return The count
+         */
+        public int getDraws() {
+            return draws;
+        }
+
+        /**
+         * Gets the number of games won by Black after this move.
+         * @return The count
+         */
+        public int getBlackWins() {
+            return blackWins;
+        }
+
+        /**
+         * Gets the number of games in which this move was played.
+         * @return The count
+         */
+        public long getGames() {
+            return (long) whiteWins + draws + blackWins;
+        }
+    }
+}
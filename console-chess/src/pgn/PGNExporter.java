@@ -14,18 +14,27 @@ public class PGNExporter {
 
     /**
      * Generate PGN text from tags and SAN moves.
+     * When the tags set up a position with a FEN tag, move numbers continue from its fullmove
+     * number and a first move by Black is written as "N...".
      */
     public static String generate(Map<String, String> tags, List<String> sanMoves) {
         StringBuilder sb = new StringBuilder();
         if (tags != null) {
             for (Map.Entry<String, String> e : tags.entrySet()) {
-                sb.append("[").append(e.getKey()).append(" \"").append(e.getValue()).append("\"]\n");
+                sb.append("[").append(e.getKey()).append(" \"").append(escape(e.getValue())).append("\"]\n");
             }
             sb.append('\n');
         }
         if (sanMoves != null && !sanMoves.isEmpty()) {
-            int moveNum = 1;
-            for (int i = 0; i < sanMoves.size(); i += 2) {
+            String[] fields = tags != null ? PGNParser.startFen(tags).trim().split("\\s+") : new String[0];
+            int moveNum = fields.length > 5 ? parseMoveNumber(fields[5]) : 1;
+            int i = 0;
+            if (fields.length > 1 && fields[1].equals("b")) {
+                sb.append(moveNum).append("... ").append(sanMoves.get(0)).append(' ');
+                moveNum++;
+                i = 1;
+            }
+            for (; i < sanMoves.size(); i += 2) {
                 sb.append(moveNum).append(". ");
                 sb.append(sanMoves.get(i));
                 if (i + 1 < sanMoves.size()) {
@@ -38,6 +47,20 @@ public class PGNExporter {
         return sb.toString().trim() + "\n";
     }
 
+    /**
+     * Generate PGN text from tags and SAN moves, followed by the result.
+     * Without moves the result alone is the movetext, after the blank line that ends the tags.
+     */
+    public static String generate(Map<String, String> tags, List<String> sanMoves, String result) {
+        String pgnText = generate(tags, sanMoves);
+        if (result != null && !result.isEmpty()) {
+            String text = pgnText.trim();
+            String separator = text.isEmpty() ? "" : (sanMoves == null || sanMoves.isEmpty()) ? "\n\n" : " ";
+            pgnText = text + separator + result + "\n";
+        }
+        return pgnText;
+    }
+
     /**
      * Generate PGN text and save it to a file.
      */
@@ -50,10 +73,25 @@ public class PGNExporter {
      * Generate PGN text with a result and save to file.
      */
     public static void saveToFile(Path filePath, Map<String, String> tags, List<String> sanMoves, String result) throws IOException {
-        String pgnText = generate(tags, sanMoves);
-        if (result != null && !result.isEmpty()) {
-            pgnText = pgnText.trim() + " " + result + "\n";
+        Files.writeString(filePath, generate(tags, sanMoves, result));
+    }
+
+    /**
+     * Reads the fullmove number field of a FEN, defaulting to 1.
+     */
+    private static int parseMoveNumber(String field) {
+        try {
+            return Math.max(1, Integer.parseInt(field));
+        } catch (NumberFormatException e) {
+            return 1;
         }
-        Files.writeString(filePath, pgnText);
+    }
+
+    /**
+     * Escapes backslashes and quotes in a tag value.
+     */
+    private static String escape(String value) {
+        if (value.indexOf('"') < 0 && value.indexOf('\\') < 0) return value;
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
     }
 }
@@ -0,0 +1,77 @@
+package pgn;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game read from a PGN database: its tag pairs, SAN moves and result.
+ * Instances are immutable.
+ */
+public final class PGNGame {
+    private final long number;
+    private final Map<String, String> tags;
+    private final List<String> moves;
+    private final String result;
+
+    /**
+     * Creates a game.
+     * @param number The 1-based position of the game in its database
+     * @param tags The tag pairs in file order
+     * @param moves The SAN moves of the main line
+     * @param result The game termination marker ("1-0", "0-1", "1/2-1/2" or "*")
+     */
+    public PGNGame(long number, Map<String, String> tags, List<String> moves, String result) {
+        this.number = number;
+        this.tags = Collections.unmodifiableMap(tags);
+        this.moves = Collections.unmodifiableList(moves);
+        this.result = result;
+    }
+
+    /**
+     * Gets the position of the game in its database.
+     * @return The 1-based game number
+     */
+    public long getNumber() {
+        return number;
+    }
+
+    /**
+     * Gets the tag pairs.
+     * @return Tag names mapped to their values, in file order
+     */
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Gets the value of one tag.
+     * @param name The tag name (e.g., "White")
+     * @return The value, or null if the game has no such tag
+     */
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * Gets the moves of the main line.
+     * @return SAN move strings, without move numbers, comments or variations
+     */
+    public List<String> getMoves() {
+        return moves;
+    }
+
+    /**
+     * Gets the result.
+     * @return "1-0", "0-1", "1/2-1/2" or "*"
+     */
+    public String getResult() {
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + number + " " + tags.getOrDefault("White", "?") + " - " + tags.getOrDefault("Black", "?")
+                + " " + result + " (" + moves.size() + " plies)";
+    }
+}
@@ -0,0 +1,324 @@
+package pgn;
+
+import board.Board;
+import enums.Color;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Multi-threaded import of a PGN database.
+ * One reader thread splits the input at game boundaries, a pool of workers parses each
+ * game and replays its moves to validate the SAN, and the calling thread hands the results
+ * to a sink. Both hand-offs go through bounded queues, so a slow sink holds back the workers
+ * and the workers hold back the reader. On top of that the reader takes a permit for every game
+ * it queues and the permit is returned when the game reaches the sink, so at most
+ * queueCapacity + workers games are in flight at once and memory stays bounded whatever
+ * the file size, even when ordered mode holds finished games back behind a slow one.
+ *
+ * In ordered mode the sink sees games in file order; otherwise in the order they finish.
+ * If the sink throws, the reader and workers are interrupted and joined before the exception
+ * propagates; they are daemon threads, so a reader stuck on its input cannot keep the JVM alive.
+ */
+public class PGNImportPipeline {
+
+    /**
+     * Outcome of importing one game.
+     */
+    public static final class Result {
+        private final PGNGame game;
+        private final int validPlies;
+        private final String error;
+
+        private Result(PGNGame game, int validPlies, String error) {
+            this.game = game;
+            this.validPlies = validPlies;
+            this.error = error;
+        }
+
+        /**
+         * Gets the parsed game.
+         * @return The game
+         */
+        public PGNGame getGame() {
+            return game;
+        }
+
+        /**
+         * Checks if every move of the game was legal.
+         * @return true if the game replayed completely
+         */
+        public boolean isValid() {
+            return error == null;
+        }
+
+        /**
+         * Gets the number of moves that replayed before the first illegal one.
+         * @return The count of legal plies
+         */
+        public int getValidPlies() {
+            return validPlies;
+        }
+
+        /**
+         * Gets a description of what made the game invalid.
+         * @return The error message, or null for a valid game
+         */
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Totals of one import run.
+     */
+    public static final class Stats {
+        private final long games;
+        private final long invalid;
+        private final long plies;
+        private final long elapsedMillis;
+
+        private Stats(long games, long invalid, long plies, long elapsedMillis) {
+            this.games = games;
+            this.invalid = invalid;
+            this.plies = plies;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * Gets the number of games imported.
+         * @return The game count
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * Gets the number of games with an illegal or unreadable move.
+         * @return The invalid game count
+         */
+        public long getInvalid() {
+            return invalid;
+        }
+
+        /**
+         * Gets the number of main-line moves over all games.
+         * @return The ply count
+         */
+        public long getPlies() {
+            return plies;
+        }
+
+        /**
+         * Gets the wall-clock time of the run.
+         * @return Elapsed milliseconds
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Gets the import speed.
+         * @return Games per second
+         */
+        public double getGamesPerSecond() {
+            return games * 1000.0 / Math.max(1, elapsedMillis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d games (%,d invalid), %,d plies in %.2f s, %,.0f games/s",
+                    games, invalid, plies, elapsedMillis / 1000.0, getGamesPerSecond());
+        }
+    }
+
+    /** Marks the end of the input on both queues. */
+    private static final Job END_JOB = new Job(0, null);
+    private static final Result END_RESULT = new Result(null, 0, null);
+
+    private final int workers;
+    private final int queueCapacity;
+    private final boolean ordered;
+
+    /**
+     * Creates a pipeline.
+     * @param workers Number of parsing and validation threads (at least 1)
+     * @param queueCapacity Games that may wait in each queue (at least 1)
+     * @param ordered true to deliver results in file order
+     */
+    public PGNImportPipeline(int workers, int queueCapacity, boolean ordered) {
+        if (workers < 1) throw new IllegalArgumentException("Worker count must be at least 1: " + workers);
+        if (queueCapacity < 1) throw new IllegalArgumentException("Queue capacity must be at least 1: " + queueCapacity);
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Imports every game of a reader. The sink runs on the calling thread, one result at a time.
+     * The reader is not closed.
+     *
+     * @param reader The source of game texts
+     * @param sink Receives the result of every game
+     * @return Totals of the run
+     * @throws UncheckedIOException if reading the input fails
+     */
+    public Stats run(PGNReader reader, Consumer<Result> sink) {
+        long start = System.nanoTime();
+        BlockingQueue<Job> jobs = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Result> results = new ArrayBlockingQueue<>(queueCapacity);
+        Semaphore inFlight = new Semaphore(queueCapacity + workers);
+        RuntimeException[] readError = new RuntimeException[1];
+
+        Thread readerThread = new Thread(() -> {
+            try {
+                long number = 0;
+                for (String text = reader.nextText(); text != null; text = reader.nextText()) {
+                    inFlight.acquire();
+                    jobs.put(new Job(++number, text));
+                }
+            } catch (RuntimeException e) {
+                readError[0] = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                putAll(jobs, END_JOB, workers);
+            }
+        }, "pgn-reader");
+        readerThread.setDaemon(true);
+
+        Thread[] pool = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            pool[i] = new Thread(() -> {
+                PGNParser parser = new PGNParser();
+                Board board = new Board();
+                try {
+                    for (Job job = jobs.take(); job != END_JOB; job = jobs.take()) {
+                        results.put(importGame(parser, board, job));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    putAll(results, END_RESULT, 1);
+                }
+            }, "pgn-worker-" + i);
+            pool[i].setDaemon(true);
+        }
+
+        readerThread.start();
+        for (Thread t : pool) t.start();
+
+        long games = 0;
+        long invalid = 0;
+        long plies = 0;
+        Map<Long, Result> pending = new HashMap<>();
+        long nextNumber = 1;
+        int finished = 0;
+        boolean completed = false;
+        try {
+            while (finished < workers) {
+                Result r = results.take();
+                if (r == END_RESULT) {
+                    finished++;
+                    continue;
+                }
+                games++;
+                plies += r.getGame().getMoves().size();
+                if (!r.isValid()) invalid++;
+                if (!ordered) {
+                    inFlight.release();
+                    sink.accept(r);
+                    continue;
+                }
+                // Hold results back until every earlier game has been delivered
+                pending.put(r.getGame().getNumber(), r);
+                for (Result p = pending.remove(nextNumber); p != null; p = pending.remove(nextNumber)) {
+                    inFlight.release();
+                    sink.accept(p);
+                    nextNumber++;
+                }
+            }
+            readerThread.join();
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!completed) abandon(readerThread, pool);
+        }
+        if (readError[0] != null) throw readError[0];
+        return new Stats(games, invalid, plies, (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    /**
+     * Parses one game and replays it from its start position.
+     */
+    private static Result importGame(PGNParser parser, Board board, Job job) {
+        PGNGame game;
+        try {
+            game = parser.parseGame(job.text, job.number);
+        } catch (RuntimeException e) {
+            return new Result(new PGNGame(job.number, Map.of(), List.of(), "*"), 0,
+                    "unparsable: " + e.getMessage());
+        }
+        try {
+            Color toMove = PGNParser.setupPosition(board, game.getTags());
+            int applied = parser.replay(board, game.getMoves(), toMove);
+            if (applied < game.getMoves().size()) {
+                return new Result(game, applied, "illegal move " + (applied + 1) + ": " + game.getMoves().get(applied));
+            }
+            return new Result(game, applied, null);
+        } catch (RuntimeException e) {
+            return new Result(game, 0, "cannot replay: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the reader and workers of a run that ends early and waits for them to exit.
+     * Blocked queue operations throw once interrupted, so every thread winds down; the
+     * caller's interrupt status is kept.
+     */
+    private static void abandon(Thread readerThread, Thread[] pool) {
+        readerThread.interrupt();
+        for (Thread t : pool) t.interrupt();
+        boolean interrupted = Thread.interrupted();
+        try {
+            readerThread.join();
+            for (Thread t : pool) t.join();
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Puts an end marker on a queue once for every thread that will take from it.
+     * Gives up if interrupted, since the run is then being abandoned.
+     */
+    private static <T> void putAll(BlockingQueue<T> queue, T marker, int count) {
+        try {
+            for (int i = 0; i < count; i++) {
+                queue.put(marker);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The raw text of one game and its position in the input.
+     */
+    private static final class Job {
+        final long number;
+        final String text;
+
+        Job(long number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package pgn;
+
+/**
+ * Single-pass, character-level tokenizer for PGN text.
+ * The lexer walks the text once and reports each token as a type and a range of
+ * character offsets, so no substrings are built unless the caller asks for one.
+ * Variations may be nested to any depth; {@link #getDepth()} tells main line from side lines.
+ *
+ * Typical use:
+ * <pre>
+ *   PGNLexer lexer = new PGNLexer(text);
+ *   for (PGNLexer.Token t = lexer.next(); t != PGNLexer.Token.END; t = lexer.next()) { ... }
+ * </pre>
+ */
+public final class PGNLexer {
+
+    /**
+     * Kinds of token.
+     */
+    public enum Token {
+        /** A tag pair; see {@link #getTagName()} and {@link #getTagValue()}. */
+        TAG,
+        /** A move in SAN, including check and annotation suffixes (e.g., "Nxe5+!"). */
+        SAN,
+        /** A move number indication such as "12." or "12...". */
+        MOVE_NUMBER,
+        /** A numeric annotation glyph ("$14"), or a standalone "!", "?", "!?" etc. */
+        NAG,
+        /** A brace or rest-of-line comment; the range excludes the delimiters. */
+        COMMENT,
+        /** Start of a variation "(". */
+        VARIATION_START,
+        /** End of a variation ")". */
+        VARIATION_END,
+        /** A game termination marker: "1-0", "0-1", "1/2-1/2" or "*". */
+        RESULT,
+        /** End of the text. */
+        END
+    }
+
+    private final CharSequence text;
+    private final int limit;
+    private int pos;
+    private int start;
+    private int end;
+    private int nameStart;
+    private int nameEnd;
+    private int depth;
+    private boolean escapedValue;
+
+    /**
+     * Creates a lexer over the whole text.
+     * @param text The PGN text; it must not change while the lexer is in use
+     */
+    public PGNLexer(CharSequence text) {
+        this(text, 0, text.length());
+    }
+
+    /**
+     * Creates a lexer over part of a text.
+     * @param text The PGN text; it must not change while the lexer is in use
+     * @param from Offset of the first character to read
+     * @param to Offset just past the last character to read
+     */
+    public PGNLexer(CharSequence text, int from, int to) {
+        this.text = text;
+        this.pos = from;
+        this.limit = to;
+    }
+
+    /**
+     * Reads the next token.
+     * @return The token type, or {@link Token#END} when the text is exhausted
+     */
+    public Token next() {
+        while (pos < limit) {
+            char c = text.charAt(pos);
+            if (c <= ' ') {
+                pos++;
+                continue;
+            }
+            start = pos;
+            switch (c) {
+                case '[':
+                    if (readTag()) return Token.TAG;
+                    continue;
+                case '{':
+                    return readUntil('}');
+                case ';':
+                    return readUntil('\n');
+                case '%':
+                    // Escape mechanism: the whole line is ignored when % starts it
+                    if (start == 0 || text.charAt(start - 1) == '\n') {
+                        skipLine();
+                        continue;
+                    }
+                    pos++;
+                    continue;
+                case '(':
+                    pos++;
+                    end = pos;
+                    depth++;
+                    return Token.VARIATION_START;
+                case ')':
+                    pos++;
+                    end = pos;
+                    if (depth > 0) depth--;
+                    return Token.VARIATION_END;
+                case '*':
+                    pos++;
+                    end = pos;
+                    return Token.RESULT;
+                case '$':
+                    pos++;
+                    while (pos < limit && isDigit(text.charAt(pos))) pos++;
+                    end = pos;
+                    return Token.NAG;
+                case '!':
+                case '?':
+                    while (pos < limit && (text.charAt(pos) == '!' || text.charAt(pos) == '?')) pos++;
+                    end = pos;
+                    return Token.NAG;
+                default:
+                    if (isSymbolChar(c)) return readSymbol();
+                    // Stray punctuation such as '.' or ']' carries no meaning
+                    pos++;
+            }
+        }
+        start = limit;
+        end = limit;
+        return Token.END;
+    }
+
+    /**
+     * Gets the nesting depth of variations at the current position.
+     * A VARIATION_START token reports the depth inside it, a VARIATION_END the depth after it.
+     * @return 0 on the main line
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the offset where the current token starts.
+     * For comments and tags this is the first character inside the delimiters.
+     * @return Offset into the text
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the offset just past the current token.
+     * @return Offset into the text
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the length of the current token.
+     * @return Number of characters
+     */
+    public int length() {
+        return end - start;
+    }
+
+    /**
+     * Gets a character of the current token.
+     * @param i Index within the token
+     * @return The character
+     */
+    public char charAt(int i) {
+        return text.charAt(start + i);
+    }
+
+    /**
+     * Compares the current token with a string without building one.
+     * @param s The string to compare with
+     * @return true if the token has exactly these characters
+     */
+    public boolean tokenEquals(String s) {
+        if (s.length() != end - start) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (text.charAt(start + i) != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Builds the text of the current token. For a TAG this is its value.
+     * @return The token text
+     */
+    public String getText() {
+        return text.subSequence(start, end).toString();
+    }
+
+    /**
+     * Gets the name of the current TAG token.
+     * @return The tag name (e.g., "White")
+     */
+    public String getTagName() {
+        return text.subSequence(nameStart, nameEnd).toString();
+    }
+
+    /**
+     * Gets the value of the current TAG token, with \" and \\ escapes resolved.
+     * @return The tag value
+     */
+    public String getTagValue() {
+        if (!escapedValue) return getText();
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < end) c = text.charAt(++i);
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads a tag pair [Name "Value"]. A malformed tag is skipped up to its ']' or the end of the line.
+     * @return true if a well-formed tag was read
+     */
+    private boolean readTag() {
+        pos++;
+        while (pos < limit && text.charAt(pos) == ' ') pos++;
+        nameStart = pos;
+        while (pos < limit && isSymbolChar(text.charAt(pos))) pos++;
+        nameEnd = pos;
+        while (pos < limit && text.charAt(pos) == ' ') pos++;
+        if (nameEnd == nameStart || pos >= limit || text.charAt(pos) != '"') {
+            skipTag();
+            return false;
+        }
+        pos++;
+        start = pos;
+        escapedValue = false;
+        while (pos < limit) {
+            char c = text.charAt(pos);
+            if (c == '\\' && pos + 1 < limit) {
+                escapedValue = true;
+                pos += 2;
+            } else if (c == '"' || c == '\n') {
+                break;
+            } else {
+                pos++;
+            }
+        }
+        end = pos;
+        if (pos >= limit || text.charAt(pos) != '"') {
+            skipTag();
+            return false;
+        }
+        pos++;
+        while (pos < limit && text.charAt(pos) == ' ') pos++;
+        if (pos < limit && text.charAt(pos) == ']') pos++;
+        return true;
+    }
+
+    /**
+     * Skips the rest of a malformed tag.
+     */
+    private void skipTag() {
+        while (pos < limit) {
+            char c = text.charAt(pos++);
+            if (c == ']' || c == '\n') return;
+        }
+    }
+
+    /**
+     * Skips to the start of the next line.
+     */
+    private void skipLine() {
+        while (pos < limit && text.charAt(pos++) != '\n') { }
+    }
+
+    /**
+     * Reads a comment whose first character is at pos, up to the closing character.
+     * An unterminated comment runs to the end of the text.
+     */
+    private Token readUntil(char close) {
+        pos++;
+        start = pos;
+        while (pos < limit && text.charAt(pos) != close) pos++;
+        end = pos;
+        if (pos < limit) pos++;
+        return Token.COMMENT;
+    }
+
+    /**
+     * Reads a run of symbol characters and classifies it as a move number, result or SAN move.
+     */
+    private Token readSymbol() {
+        boolean allDigits = true;
+        while (pos < limit) {
+            char c = text.charAt(pos);
+            if (!isSymbolChar(c) && c != '!' && c != '?') break;
+            if (!isDigit(c)) allDigits = false;
+            pos++;
+        }
+        end = pos;
+        if (allDigits) {
+            while (pos < limit && text.charAt(pos) == '.') pos++;
+            end = pos;
+            return Token.MOVE_NUMBER;
+        }
+        if (tokenEquals("1-0") || tokenEquals("0-1") || tokenEquals("1/2-1/2")) return Token.RESULT;
+        return Token.SAN;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Checks for the characters that can make up a SAN move, move number, result or tag name.
+     */
+    private static boolean isSymbolChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c == '+' || c == '#' || c == '=' || c == ':' || c == '-' || c == '/';
+    }
+}
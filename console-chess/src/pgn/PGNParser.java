@@ -1,7 +1,13 @@
 package pgn;
 
+import board.Attacks;
+import board.BitboardPosition;
 import board.Board;
+import board.Fen;
 import board.Move;
+import board.MoveGenerator;
+import board.MoveList;
+import board.PackedMove;
 import board.Square;
 import enums.Color;
 import enums.PieceType;
@@ -9,17 +15,16 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import pieces.*;
 
 /**
  * Robust PGN parser that can handle any valid SAN move.
  * Parses tags and moves, and applies them to a Board.
+ * An instance keeps a scratch move list and must not be shared between threads.
  */
 public class PGNParser {
-
-    private static final Pattern TAG_PATTERN = Pattern.compile("\\[(\\w+)\\s+\"([^\"]*)\"\\]");
+    /** Reused to look for legal replies when a move gives check. */
+    private final MoveList replies = new MoveList();
 
     /**
      * Parses PGN header tags from text.
@@ -28,52 +33,66 @@ public class PGNParser {
      * @param text The PGN text to parse
      * @return Map of tag names to their values
      */
-    public Map<String, String> parseTags(String text) {
+    public Map<String, String> parseTags(CharSequence text) {
         Map<String, String> tags = new LinkedHashMap<>();
-        Matcher m = TAG_PATTERN.matcher(text);
-        while (m.find()) {
-            tags.put(m.group(1), m.group(2));
+        PGNLexer lexer = new PGNLexer(text);
+        for (PGNLexer.Token t = lexer.next(); t != PGNLexer.Token.END; t = lexer.next()) {
+            if (t == PGNLexer.Token.TAG) tags.put(lexer.getTagName(), lexer.getTagValue());
         }
         return tags;
     }
 
     /**
-     * Extracts move tokens from PGN text.
-     * Removes tags, comments, variations, and move numbers.
+     * Extracts the main-line move tokens from PGN text.
+     * Skips tags, comments, variations (nested to any depth), NAGs and move numbers,
+     * and stops at the game result.
      * 
      * @param text The PGN text to parse
      * @return List of SAN move strings
      */
-    public List<String> parseMoves(String text) {
-        // Remove tags
-        String noTags = text.replaceAll("(?s)\\[.*?\\]", " ");
-        // Remove comments in {}
-        noTags = noTags.replaceAll("(?s)\\{.*?\\}", " ");
-        // Remove ; comments
-        noTags = noTags.replaceAll(";.*?(\\r?\\n|$)", " ");
-        // Remove variations in ()
-        noTags = noTags.replaceAll("(?s)\\(.*?\\)", " ");
-        // Remove move numbers like "1." or "12..." 
-        noTags = noTags.replaceAll("\\d+\\.+", " ");
-        // Normalize whitespace
-        String[] toks = noTags.trim().split("\\s+");
+    public List<String> parseMoves(CharSequence text) {
         List<String> moves = new ArrayList<>();
-        for (String t : toks) {
-            if (t.isEmpty()) continue;
-            // Skip results
-            if (t.matches("1-0|0-1|1/2-1/2|\\*")) break;
-            moves.add(t);
+        PGNLexer lexer = new PGNLexer(text);
+        for (PGNLexer.Token t = lexer.next(); t != PGNLexer.Token.END; t = lexer.next()) {
+            if (lexer.getDepth() > 0 || t == PGNLexer.Token.VARIATION_END) continue;
+            if (t == PGNLexer.Token.RESULT) break;
+            if (t == PGNLexer.Token.SAN) moves.add(lexer.getText());
         }
         return moves;
     }
 
+    /**
+     * Parses the tags, main-line moves and result of one game in a single pass.
+     * If the movetext has no result marker, the Result tag is used, or "*" without one.
+     * 
+     * @param text The text of one game
+     * @param number The 1-based position of the game in its database
+     * @return The parsed game
+     */
+    public PGNGame parseGame(CharSequence text, long number) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>();
+        String result = null;
+        PGNLexer lexer = new PGNLexer(text);
+        for (PGNLexer.Token t = lexer.next(); t != PGNLexer.Token.END; t = lexer.next()) {
+            if (t == PGNLexer.Token.TAG) {
+                tags.put(lexer.getTagName(), lexer.getTagValue());
+            } else if (lexer.getDepth() == 0 && result == null) {
+                if (t == PGNLexer.Token.SAN) moves.add(lexer.getText());
+                else if (t == PGNLexer.Token.RESULT) result = lexer.getText();
+            }
+        }
+        if (result == null) result = tags.getOrDefault("Result", "*");
+        return new PGNGame(number, tags, moves, result);
+    }
+
     /**
      * Parses complete PGN text into tags and moves.
      * 
      * @param text The PGN text to parse
      * @return Map containing "tags" and "moves" entries
      */
-    public Map<String, Object> parsePGN(String text) {
+    public Map<String, Object> parsePGN(CharSequence text) {
         Map<String, Object> out = new HashMap<>();
         out.put("tags", parseTags(text));
         out.put("moves", parseMoves(text));
@@ -88,21 +107,44 @@ public class PGNParser {
      * @return true if all moves were successfully loaded
      */
     public boolean loadToBoard(Board board, String pgnText) {
+        return loadMoves(board, parseMoves(pgnText));
+    }
+
+    /**
+     * Plays a list of SAN moves on a board starting from the initial position.
+     * 
+     * @param board The board to load moves onto
+     * @param tokens The SAN moves, e.g. from {@link PGNGame#getMoves()}
+     * @return true if all moves were successfully loaded
+     */
+    public boolean loadMoves(Board board, List<String> tokens) {
         setupInitialPosition(board);
-        List<String> tokens = parseMoves(pgnText);
-        Color toMove = Color.WHITE;
+        int applied = replay(board, tokens, Color.WHITE);
+        if (applied < tokens.size()) {
+            System.out.println("Failed to resolve SAN at index " + applied + ": " + tokens.get(applied));
+            printBoard(board);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Plays SAN moves on a board from its current position, stopping at the first move
+     * that cannot be resolved. Prints nothing, so it can be used to validate games in bulk.
+     * 
+     * @param board The board to play the moves on
+     * @param tokens The SAN moves
+     * @param toMove The color to make the first move
+     * @return The number of moves applied; equal to tokens.size() if all were legal
+     */
+    public int replay(Board board, List<String> tokens, Color toMove) {
         for (int idx = 0; idx < tokens.size(); idx++) {
-            String san = tokens.get(idx);
-            Move mv = resolveSAN(board, san, toMove);
-            if (mv == null) {
-                System.out.println("Failed to resolve SAN at index " + idx + ": " + san);
-                printBoard(board);
-                return false;
-            }
-            board.applyMove(mv);
+            int move = SANResolver.resolve(board, tokens.get(idx), toMove);
+            if (move == PackedMove.NONE) return idx;
+            board.makeMove(move);
             toMove = (toMove == Color.WHITE) ? Color.BLACK : Color.WHITE;
         }
-        return true;
+        return tokens.size();
     }
 
     /**
@@ -114,7 +156,7 @@ public class PGNParser {
         for (int r = 7; r >= 0; r--) {
             System.out.print((r + 1) + " ");
             for (int f = 0; f < 8; f++) {
-                Piece p = board.getPieceAt(new Square(f, r));
+                Piece p = board.getPieceAt(r * 8 + f);
                 if (p == null) {
                     System.out.print(". ");
                 } else {
@@ -136,469 +178,57 @@ public class PGNParser {
 
     /**
      * Sets up the standard chess starting position on the board.
-     * Clears the board first, then places all 32 pieces in their initial squares.
+     * Clears the board and its move history first, then places all 32 pieces in their initial squares.
      * 
      * @param board The board to set up
      */
     public void setupInitialPosition(Board board) {
-        for (int r = 0; r < 8; r++) {
-            for (int f = 0; f < 8; f++) {
-                board.setPieceAt(new Square(f, r), null);
-            }
-        }
-        // White pieces
-        board.setPieceAt(new Square(0, 0), new Rook(Color.WHITE, 0, 0));
-        board.setPieceAt(new Square(1, 0), new Knight(Color.WHITE, 1, 0));
-        board.setPieceAt(new Square(2, 0), new Bishop(Color.WHITE, 2, 0));
-        board.setPieceAt(new Square(3, 0), new Queen(Color.WHITE, 3, 0));
-        board.setPieceAt(new Square(4, 0), new King(Color.WHITE, 4, 0));
-        board.setPieceAt(new Square(5, 0), new Bishop(Color.WHITE, 5, 0));
-        board.setPieceAt(new Square(6, 0), new Knight(Color.WHITE, 6, 0));
-        board.setPieceAt(new Square(7, 0), new Rook(Color.WHITE, 7, 0));
-        for (int f = 0; f < 8; f++) {
-            board.setPieceAt(new Square(f, 1), new Pawn(Color.WHITE, f, 1));
-        }
-        // Black pieces
-        board.setPieceAt(new Square(0, 7), new Rook(Color.BLACK, 0, 7));
-        board.setPieceAt(new Square(1, 7), new Knight(Color.BLACK, 1, 7));
-        board.setPieceAt(new Square(2, 7), new Bishop(Color.BLACK, 2, 7));
-        board.setPieceAt(new Square(3, 7), new Queen(Color.BLACK, 3, 7));
-        board.setPieceAt(new Square(4, 7), new King(Color.BLACK, 4, 7));
-        board.setPieceAt(new Square(5, 7), new Bishop(Color.BLACK, 5, 7));
-        board.setPieceAt(new Square(6, 7), new Knight(Color.BLACK, 6, 7));
-        board.setPieceAt(new Square(7, 7), new Rook(Color.BLACK, 7, 7));
-        for (int f = 0; f < 8; f++) {
-            board.setPieceAt(new Square(f, 6), new Pawn(Color.BLACK, f, 6));
-        }
-    }
-
-    /**
-     * Resolves a Standard Algebraic Notation (SAN) string to a concrete Move object.
-     * Handles all types of moves including: piece moves, pawn moves, captures,
-     * promotions, castling, and disambiguation (file/rank specifiers).
-     * 
-     * @param board The current board state
-     * @param san The SAN move string (e.g., "Nf3", "e4", "O-O", "exd5", "e8=Q")
-     * @param color The color of the player making the move
-     * @return The resolved Move object, or null if the SAN cannot be resolved
-     */
-    public Move resolveSAN(Board board, String san, Color color) {
-        if (san == null || san.isEmpty()) return null;
-
-        // Handle castling first
-        if (san.startsWith("O-O-O") || san.startsWith("0-0-0")) {
-            return resolveCastling(board, color, false); // queenside
-        }
-        if (san.startsWith("O-O") || san.startsWith("0-0")) {
-            return resolveCastling(board, color, true); // kingside
-        }
-
-        // Remove check/mate markers and annotations
-        String token = san.replaceAll("[+#!?]+$", "");
-
-        // Parse promotion (e.g., e8=Q)
-        PieceType promotionType = null;
-        int eqIdx = token.indexOf('=');
-        if (eqIdx >= 0 && eqIdx < token.length() - 1) {
-            char pc = token.charAt(eqIdx + 1);
-            promotionType = charToPieceType(pc);
-            token = token.substring(0, eqIdx);
-        }
-
-        // Determine piece type
-        PieceType pieceType = PieceType.PAWN;
-        int startIdx = 0;
-        if (!token.isEmpty()) {
-            char first = token.charAt(0);
-            if (first >= 'A' && first <= 'Z' && first != 'O') {
-                PieceType parsed = charToPieceType(first);
-                if (parsed != null) {
-                    pieceType = parsed;
-                    startIdx = 1;
-                }
-            }
-        }
-
-        // Remove capture marker
-        token = token.substring(startIdx).replace("x", "");
-
-        if (token.length() < 2) return null;
-
-        // Target square is last two characters
-        String targetStr = token.substring(token.length() - 2);
-        int targetFile = targetStr.charAt(0) - 'a';
-        int targetRank = targetStr.charAt(1) - '1';
-        if (targetFile < 0 || targetFile > 7 || targetRank < 0 || targetRank > 7) return null;
-        Square target = new Square(targetFile, targetRank);
-
-        // Disambiguation (everything before target)
-        String disamb = token.substring(0, token.length() - 2);
-        Integer disambFile = null;
-        Integer disambRank = null;
-        for (char c : disamb.toCharArray()) {
-            if (c >= 'a' && c <= 'h') disambFile = c - 'a';
-            else if (c >= '1' && c <= '8') disambRank = c - '1';
-        }
-
-        // Find all candidate pieces
-        List<CandidateMove> candidates = new ArrayList<>();
-        for (int r = 0; r < 8; r++) {
-            for (int f = 0; f < 8; f++) {
-                Piece p = board.getPieceAt(new Square(f, r));
-                if (p == null || p.getColor() != color || p.getType() != pieceType) continue;
-
-                // Check disambiguation
-                if (disambFile != null && f != disambFile) continue;
-                if (disambRank != null && r != disambRank) continue;
-
-                Square from = new Square(f, r);
-
-                // Check if this piece can reach the target
-                if (canReach(board, p, from, target, color)) {
-                    Move move = new Move(from, target, promotionType);
-                    // Verify the move doesn't leave king in check
-                    if (!leavesKingInCheck(board, move, color)) {
-                        candidates.add(new CandidateMove(from, target, promotionType));
-                    }
-                }
-            }
-        }
-
-        if (candidates.size() == 1) {
-            CandidateMove c = candidates.get(0);
-            return new Move(c.from, c.to, c.promotion);
-        }
-        if (candidates.size() > 1) {
-            // Multiple candidates - shouldn't happen with proper disambiguation
-            // Return the first one
-            CandidateMove c = candidates.get(0);
-            return new Move(c.from, c.to, c.promotion);
-        }
-
-        return null;
-    }
-
-    /**
-     * Helper class to store candidate moves during SAN resolution.
-     */
-    private static class CandidateMove {
-        Square from, to;
-        PieceType promotion;
-        CandidateMove(Square from, Square to, PieceType promotion) {
-            this.from = from;
-            this.to = to;
-            this.promotion = promotion;
-        }
-    }
-
-    /**
-     * Resolves a castling move to a concrete Move object.
-     * 
-     * @param board The current board state
-     * @param color The color of the player castling
-     * @param kingside true for kingside castling (O-O), false for queenside (O-O-O)
-     * @return The castling Move, or null if the king is not found
-     */
-    private Move resolveCastling(Board board, Color color, boolean kingside) {
-        int rank = (color == Color.WHITE) ? 0 : 7;
-        // Find king
-        for (int f = 0; f < 8; f++) {
-            Piece p = board.getPieceAt(new Square(f, rank));
-            if (p != null && p.getType() == PieceType.KING && p.getColor() == color) {
-                int toFile = kingside ? f + 2 : f - 2;
-                return new Move(new Square(f, rank), new Square(toFile, rank));
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Converts a character to its corresponding PieceType.
-     * @param c The character (K, Q, R, B, N, P)
-     * @return The corresponding PieceType, or null if invalid
-     */
-    private PieceType charToPieceType(char c) {
-        return switch (c) {
-            case 'K' -> PieceType.KING;
-            case 'Q' -> PieceType.QUEEN;
-            case 'R' -> PieceType.ROOK;
-            case 'B' -> PieceType.BISHOP;
-            case 'N' -> PieceType.KNIGHT;
-            case 'P' -> PieceType.PAWN;
-            default -> null;
-        };
+        Fen.load(board, Fen.START_POSITION);
     }
 
     /**
-     * Checks if a piece can geometrically reach from one square to another.
-     * Validates piece movement rules and checks for path obstructions.
+     * Sets up the start position of a game from its tags: the position in the FEN tag,
+     * unless the SetUp tag is "0", otherwise the standard starting position.
+     * A FEN tag without a SetUp tag is accepted, as many databases leave SetUp out.
      * 
-     * @param board The current board state
-     * @param piece The piece attempting to move
-     * @param from The starting square
-     * @param to The destination square
-     * @param color The color of the moving piece
-     * @return true if the piece can legally reach the destination
-     */
-    private boolean canReach(Board board, Piece piece, Square from, Square to, Color color) {
-        int fx = from.getFile(), fy = from.getRank();
-        int tx = to.getFile(), ty = to.getRank();
-        int dx = tx - fx, dy = ty - fy;
-        int adx = Math.abs(dx), ady = Math.abs(dy);
-
-        Piece targetPiece = board.getPieceAt(to);
-        // Can't capture own piece
-        if (targetPiece != null && targetPiece.getColor() == color) return false;
-
-        switch (piece.getType()) {
-            case PAWN -> {
-                int dir = (color == Color.WHITE) ? 1 : -1;
-                int startRank = (color == Color.WHITE) ? 1 : 6;
-
-                // Capture (diagonal)
-                if (adx == 1 && dy == dir) {
-                    // Normal capture
-                    if (targetPiece != null && targetPiece.getColor() != color) return true;
-                    // En passant
-                    if (targetPiece == null && isEnPassantTarget(board, from, to, color)) return true;
-                    return false;
-                }
-                // Forward move (no capture)
-                if (dx == 0 && targetPiece == null) {
-                    if (dy == dir) return true;
-                    if (dy == 2 * dir && fy == startRank) {
-                        Square mid = new Square(fx, fy + dir);
-                        return board.getPieceAt(mid) == null;
-                    }
-                }
-                return false;
-            }
-            case KNIGHT -> {
-                return (adx == 1 && ady == 2) || (adx == 2 && ady == 1);
-            }
-            case BISHOP -> {
-                if (adx != ady || adx == 0) return false;
-                return isPathClear(board, from, to);
-            }
-            case ROOK -> {
-                if (dx != 0 && dy != 0) return false;
-                if (dx == 0 && dy == 0) return false;
-                return isPathClear(board, from, to);
-            }
-            case QUEEN -> {
-                if (dx != 0 && dy != 0 && adx != ady) return false;
-                if (dx == 0 && dy == 0) return false;
-                return isPathClear(board, from, to);
-            }
-            case KING -> {
-                // Normal king move
-                if (adx <= 1 && ady <= 1 && (adx + ady > 0)) return true;
-                // Castling handled separately
-                return false;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Checks if a square is a valid en passant target.
-     * 
-     * @param board The current board state
-     * @param from The capturing pawn's square
-     * @param to The target capture square
-     * @param color The color of the capturing pawn
-     * @return true if en passant capture is valid
+     * @param board The board to set up
+     * @param tags The game's tags
+     * @return The side to move first
+     * @throws IllegalArgumentException if the FEN tag is malformed
      */
-    private boolean isEnPassantTarget(Board board, Square from, Square to, Color color) {
-        Move lastMove = board.getLastMove();
-        if (lastMove == null) return false;
-
-        Square lmFrom = lastMove.getFrom();
-        Square lmTo = lastMove.getTo();
-        if (lmFrom == null || lmTo == null) return false;
-
-        Piece lastPiece = board.getPieceAt(lmTo);
-        if (lastPiece == null || lastPiece.getType() != PieceType.PAWN) return false;
-
-        // Last move was a two-square pawn advance
-        if (Math.abs(lmTo.getRank() - lmFrom.getRank()) != 2) return false;
-
-        // The capturing pawn must be adjacent to the target pawn
-        if (lmTo.getRank() != from.getRank()) return false;
-        if (Math.abs(lmTo.getFile() - from.getFile()) != 1) return false;
-
-        // The target square is where the pawn passed through
-        int passedRank = (lmFrom.getRank() + lmTo.getRank()) / 2;
-        return to.getFile() == lmTo.getFile() && to.getRank() == passedRank;
+    public static Color setupPosition(Board board, Map<String, String> tags) {
+        return Fen.load(board, startFen(tags));
     }
 
     /**
-     * Checks if the path between two squares is clear of pieces.
-     * Works for horizontal, vertical, and diagonal paths.
+     * Gets the start position of a game from its tags, as {@link #setupPosition} uses it.
      * 
-     * @param board The current board state
-     * @param from The starting square
-     * @param to The destination square
-     * @return true if no pieces block the path
+     * @param tags The game's tags
+     * @return The FEN of the start position
      */
-    private boolean isPathClear(Board board, Square from, Square to) {
-        int fx = from.getFile(), fy = from.getRank();
-        int tx = to.getFile(), ty = to.getRank();
-        int dx = Integer.compare(tx - fx, 0);
-        int dy = Integer.compare(ty - fy, 0);
-
-        int x = fx + dx, y = fy + dy;
-        while (x != tx || y != ty) {
-            if (board.getPieceAt(new Square(x, y)) != null) return false;
-            x += dx;
-            y += dy;
-        }
-        return true;
+    public static String startFen(Map<String, String> tags) {
+        String fen = tags.get("FEN");
+        return (fen == null || "0".equals(tags.get("SetUp"))) ? Fen.START_POSITION : fen;
     }
 
     /**
-     * Checks if making a move would leave the moving side's king in check.
-     * Used to filter out illegal moves during SAN resolution.
+     * Resolves a Standard Algebraic Notation (SAN) string to a concrete Move object.
+     * Handles all types of moves including: piece moves, pawn moves, captures,
+     * promotions, castling, and disambiguation (file/rank specifiers).
+     * See {@link SANResolver} for how candidates are found and checked.
      * 
      * @param board The current board state
-     * @param move The move to test
-     * @param color The color of the moving player
-     * @return true if the move would leave the king in check (illegal)
-     */
-    private boolean leavesKingInCheck(Board board, Move move, Color color) {
-        // Clone board
-        Board copy = board.clone();
-
-        // Apply move manually
-        Square from = move.getFrom();
-        Square to = move.getTo();
-        Piece moving = copy.getPieceAt(from);
-        if (moving == null) return true;
-
-        // Handle en passant capture
-        if (moving.getType() == PieceType.PAWN) {
-            int dx = to.getFile() - from.getFile();
-            if (dx != 0 && copy.getPieceAt(to) == null) {
-                // En passant - remove the captured pawn
-                Move lastMove = copy.getLastMove();
-                if (lastMove != null) {
-                    copy.setPieceAt(lastMove.getTo(), null);
-                }
-            }
-        }
-
-        copy.setPieceAt(to, moving);
-        copy.setPieceAt(from, null);
-
-        // Handle promotion
-        if (move.getPromotion() != null && moving.getType() == PieceType.PAWN) {
-            Piece promoted = createPiece(move.getPromotion(), color, to.getFile(), to.getRank());
-            copy.setPieceAt(to, promoted);
-        }
-
-        // Find king
-        Square kingSquare = null;
-        for (int r = 0; r < 8 && kingSquare == null; r++) {
-            for (int f = 0; f < 8; f++) {
-                Piece p = copy.getPieceAt(new Square(f, r));
-                if (p != null && p.getType() == PieceType.KING && p.getColor() == color) {
-                    kingSquare = new Square(f, r);
-                    break;
-                }
-            }
-        }
-
-        if (kingSquare == null) return false;
-
-        // Check if king is attacked
-        Color enemy = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
-        return isSquareAttackedBy(copy, kingSquare, enemy);
-    }
-
-    /**
-     * Check if a square is attacked by any piece of the given color.
-     * Uses direct attack pattern checks to avoid recursion.
+     * @param san The SAN move string (e.g., "Nf3", "e4", "O-O", "exd5", "e8=Q")
+     * @param color The color of the player making the move
+     * @return The resolved Move object, or null if the SAN cannot be resolved
      */
-    private boolean isSquareAttackedBy(Board board, Square target, Color byColor) {
-        int tx = target.getFile(), ty = target.getRank();
-
-        // Pawn attacks
-        int pawnDir = (byColor == Color.WHITE) ? 1 : -1;
-        for (int df : new int[]{-1, 1}) {
-            int pf = tx + df;
-            int pr = ty - pawnDir;
-            if (pf >= 0 && pf < 8 && pr >= 0 && pr < 8) {
-                Piece p = board.getPieceAt(new Square(pf, pr));
-                if (p != null && p.getColor() == byColor && p.getType() == PieceType.PAWN) return true;
-            }
-        }
-
-        // Knight attacks
-        int[][] knightMoves = {{1,2},{2,1},{2,-1},{1,-2},{-1,-2},{-2,-1},{-2,1},{-1,2}};
-        for (int[] m : knightMoves) {
-            int nx = tx + m[0], ny = ty + m[1];
-            if (nx >= 0 && nx < 8 && ny >= 0 && ny < 8) {
-                Piece p = board.getPieceAt(new Square(nx, ny));
-                if (p != null && p.getColor() == byColor && p.getType() == PieceType.KNIGHT) return true;
-            }
-        }
-
-        // King attacks (adjacent squares)
-        for (int dx = -1; dx <= 1; dx++) {
-            for (int dy = -1; dy <= 1; dy++) {
-                if (dx == 0 && dy == 0) continue;
-                int kx = tx + dx, ky = ty + dy;
-                if (kx >= 0 && kx < 8 && ky >= 0 && ky < 8) {
-                    Piece p = board.getPieceAt(new Square(kx, ky));
-                    if (p != null && p.getColor() == byColor && p.getType() == PieceType.KING) return true;
-                }
-            }
-        }
-
-        // Sliding attacks (rook, bishop, queen)
-        int[][] directions = {
-            {1, 0}, {-1, 0}, {0, 1}, {0, -1},  // orthogonal (rook, queen)
-            {1, 1}, {1, -1}, {-1, 1}, {-1, -1} // diagonal (bishop, queen)
-        };
-
-        for (int i = 0; i < directions.length; i++) {
-            int dx = directions[i][0], dy = directions[i][1];
-            int x = tx + dx, y = ty + dy;
-            while (x >= 0 && x < 8 && y >= 0 && y < 8) {
-                Piece p = board.getPieceAt(new Square(x, y));
-                if (p != null) {
-                    if (p.getColor() == byColor) {
-                        PieceType t = p.getType();
-                        boolean isOrthogonal = (i < 4);
-                        boolean isDiagonal = (i >= 4);
-                        if ((isOrthogonal && (t == PieceType.ROOK || t == PieceType.QUEEN)) ||
-                            (isDiagonal && (t == PieceType.BISHOP || t == PieceType.QUEEN))) {
-                            return true;
-                        }
-                    }
-                    break; // blocked
-                }
-                x += dx;
-                y += dy;
-            }
-        }
-
-        return false;
-    }
-
-    private Piece createPiece(PieceType type, Color color, int file, int rank) {
-        return switch (type) {
-            case QUEEN -> new Queen(color, file, rank);
-            case ROOK -> new Rook(color, file, rank);
-            case BISHOP -> new Bishop(color, file, rank);
-            case KNIGHT -> new Knight(color, file, rank);
-            case KING -> new King(color, file, rank);
-            case PAWN -> new Pawn(color, file, rank);
-        };
+    public Move resolveSAN(Board board, String san, Color color) {
+        return PackedMove.toMove(SANResolver.resolve(board, san, color));
     }
 
     /**
-     * Generate SAN notation for a move (for export).
+     * Generate SAN notation for a move (for export), with '+' for check and '#' for mate.
+     * The move is made and taken back on the board to see whether it checks.
      */
     public String moveToSAN(Board board, Move move, Color color) {
         if (move == null) return "";
@@ -607,34 +237,26 @@ public class PGNParser {
         Piece mover = board.getPieceAt(from);
         if (mover == null) return "";
 
-        // Castling
-        if (mover.getType() == PieceType.KING && Math.abs(to.getFile() - from.getFile()) == 2) {
-            return (to.getFile() > from.getFile()) ? "O-O" : "O-O-O";
-        }
-
         StringBuilder sb = new StringBuilder();
+        boolean castle = mover.getType() == PieceType.KING && Math.abs(to.getFile() - from.getFile()) == 2;
 
-        // Piece letter (not for pawns)
-        if (mover.getType() != PieceType.PAWN) {
+        // Castling
+        if (castle) {
+            sb.append((to.getFile() > from.getFile()) ? "O-O" : "O-O-O");
+        } else if (mover.getType() != PieceType.PAWN) {
+            // Piece letter (not for pawns)
             sb.append(pieceToChar(mover.getType()));
 
-            // Disambiguation
-            boolean needFile = false, needRank = false;
-            for (int r = 0; r < 8; r++) {
-                for (int f = 0; f < 8; f++) {
-                    if (f == from.getFile() && r == from.getRank()) continue;
-                    Piece other = board.getPieceAt(new Square(f, r));
-                    if (other == null || other.getType() != mover.getType() || other.getColor() != color) continue;
-                    if (canReach(board, other, new Square(f, r), to, color)) {
-                        if (!leavesKingInCheck(board, new Move(new Square(f, r), to), color)) {
-                            if (f != from.getFile()) needFile = true;
-                            else needRank = true;
-                        }
-                    }
-                }
+            // Disambiguation: the file if it tells the pieces apart, else the rank, else both
+            int fromIndex = BitboardPosition.squareIndex(from.getFile(), from.getRank());
+            long others = SANResolver.legalOrigins(board, mover.getType(), color,
+                    BitboardPosition.squareIndex(to.getFile(), to.getRank())) & ~(1L << fromIndex);
+            if (others != 0) {
+                boolean sameFile = (others & (Attacks.FILE_A << from.getFile())) != 0;
+                boolean sameRank = (others & (Attacks.RANK_1 << (8 * from.getRank()))) != 0;
+                if (!sameFile || sameRank) sb.append((char) ('a' + from.getFile()));
+                if (sameFile) sb.append((char) ('1' + from.getRank()));
             }
-            if (needFile) sb.append((char) ('a' + from.getFile()));
-            if (needRank) sb.append((char) ('1' + from.getRank()));
         } else {
             // Pawn capture needs file
             if (from.getFile() != to.getFile()) {
@@ -642,20 +264,31 @@ public class PGNParser {
             }
         }
 
-        // Capture
-        Piece captured = board.getPieceAt(to);
-        if (captured != null || (mover.getType() == PieceType.PAWN && from.getFile() != to.getFile())) {
-            sb.append('x');
-        }
+        if (!castle) {
+            // Capture
+            Piece captured = board.getPieceAt(to);
+            if (captured != null || (mover.getType() == PieceType.PAWN && from.getFile() != to.getFile())) {
+                sb.append('x');
+            }
+
+            // Target square
+            sb.append((char) ('a' + to.getFile()));
+            sb.append((char) ('1' + to.getRank()));
 
-        // Target square
-        sb.append((char) ('a' + to.getFile()));
-        sb.append((char) ('1' + to.getRank()));
+            // Promotion
+            if (move.getPromotion() != null) {
+                sb.append('=').append(pieceToChar(move.getPromotion()));
+            }
+        }
 
-        // Promotion
-        if (move.getPromotion() != null) {
-            sb.append('=').append(pieceToChar(move.getPromotion()));
+        // Check or mate
+        Color opponent = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        board.makeMove(board.encode(move));
+        if (MoveGenerator.isInCheck(board, opponent)) {
+            MoveGenerator.generateLegalMoves(board, opponent, replies);
+            sb.append(replies.isEmpty() ? '#' : '+');
         }
+        board.unmakeMove();
 
         return sb.toString();
     }
@@ -673,6 +306,7 @@ public class PGNParser {
 
     /**
      * Reads the contents of a file into a String.
+     * Meant for single games; use {@link PGNReader} to walk a database game by game.
      * 
      * @param p The path to the file to read
      * @return The file contents as a String
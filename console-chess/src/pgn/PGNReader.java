@@ -0,0 +1,242 @@
+package pgn;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming reader for PGN databases holding any number of games.
+ * The input is read line by line through a buffer and split at game boundaries,
+ * so memory use depends on the longest game and not on the size of the file.
+ * Games are parsed one at a time as the iterator advances.
+ *
+ * A game ends where the tag section of the next one starts, or at the end of the input.
+ * A tag section after a blank line also starts a new game when no movetext was seen yet,
+ * so an entry with tags only (an empty or truncated game) is read as a game of its own.
+ * Brace comments may span lines and contain blank lines or '[' without ending the game.
+ * A byte order mark at the start of the input and '%' escape lines are skipped.
+ */
+public class PGNReader implements Iterator<PGNGame>, Closeable {
+    /** Size of the read buffer in characters. */
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    private final BufferedReader in;
+    private final PGNParser parser = new PGNParser();
+    private final StringBuilder text = new StringBuilder();
+    private String pendingLine;
+    private PGNGame next;
+    private long gamesRead;
+    private long charsRead;
+    private boolean done;
+    /** true until the first line of the input has been read, to drop a byte order mark. */
+    private boolean atStart = true;
+
+    /**
+     * Creates a reader over a character stream.
+     * @param reader The PGN input; it is closed by {@link #close()}
+     */
+    public PGNReader(Reader reader) {
+        this.in = reader instanceof BufferedReader br ? br : new BufferedReader(reader, BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a PGN file for streaming. Malformed UTF-8 is replaced rather than rejected,
+     * so Latin-1 databases can be read too.
+     * @param path The file to read
+     * @return A reader positioned before the first game
+     * @throws IOException if the file cannot be opened
+     */
+    public static PGNReader open(Path path) throws IOException {
+        return new PGNReader(new BufferedReader(
+                new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    /**
+     * Streams all games of a PGN file. Close the stream to release the file.
+     * @param path The file to read
+     * @return A sequential stream of the games in file order
+     * @throws IOException if the file cannot be opened
+     */
+    public static Stream<PGNGame> games(Path path) throws IOException {
+        return open(path).stream();
+    }
+
+    /**
+     * Wraps the remaining games in a sequential stream that closes this reader when closed.
+     * @return The games in file order
+     */
+    public Stream<PGNGame> stream() {
+        Spliterator<PGNGame> split = Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        return StreamSupport.stream(split, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Checks if another game follows.
+     * @return true if {@link #next()} will return a game
+     * @throws UncheckedIOException if reading fails
+     */
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            next = readGame();
+            if (next == null) done = true;
+        }
+        return next != null;
+    }
+
+    /**
+     * Reads and parses the next game.
+     * @return The game
+     * @throws NoSuchElementException if there are no more games
+     * @throws UncheckedIOException if reading fails
+     */
+    @Override
+    public PGNGame next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        PGNGame game = next;
+        next = null;
+        return game;
+    }
+
+    /**
+     * Reads the raw text of the next game without parsing it, so parsing can happen elsewhere
+     * (see {@link PGNImportPipeline}). Do not mix with {@link #next()} on the same reader.
+     * @return The game text, or null at the end of the input
+     * @throws UncheckedIOException if reading fails
+     */
+    public String nextText() {
+        if (done || !readGameText()) {
+            done = true;
+            return null;
+        }
+        gamesRead++;
+        return text.toString();
+    }
+
+    /**
+     * Gets the number of games returned or buffered so far.
+     * @return The game count
+     */
+    public long getGamesRead() {
+        return gamesRead;
+    }
+
+    /**
+     * Gets the number of characters consumed so far, line terminators included.
+     * @return The character count
+     */
+    public long getCharsRead() {
+        return charsRead;
+    }
+
+    /**
+     * Closes the underlying input.
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        done = true;
+        in.close();
+    }
+
+    /**
+     * Reads the text of the next game and parses it.
+     * @return The game, or null at the end of the input
+     */
+    private PGNGame readGame() {
+        if (!readGameText()) return null;
+        gamesRead++;
+        return parser.parseGame(text, gamesRead);
+    }
+
+    /**
+     * Collects the lines of one game, its tag section and the movetext after it, in the text buffer.
+     * @return false if only blank lines were left
+     */
+    private boolean readGameText() {
+        text.setLength(0);
+        boolean inMoves = false;
+        boolean inComment = false;
+        boolean hasContent = false;
+        boolean blankAfterTags = false;
+        try {
+            while (true) {
+                String line = pendingLine != null ? pendingLine : in.readLine();
+                pendingLine = null;
+                if (line == null) break;
+                if (atStart) {
+                    atStart = false;
+                    if (line.startsWith("\uFEFF")) {
+                        charsRead++;
+                        line = line.substring(1);
+                    }
+                }
+                if (!inComment && line.startsWith("%")) {
+                    // Escape line: ignored, and neither tags nor movetext
+                    charsRead += line.length() + 1;
+                    continue;
+                }
+                if (!inComment && (inMoves || blankAfterTags) && line.startsWith("[")) {
+                    // Tag section of the next game
+                    pendingLine = line;
+                    break;
+                }
+                charsRead += line.length() + 1;
+                if (line.isBlank() && !inComment) {
+                    if (hasContent) text.append('\n');
+                    blankAfterTags = hasContent;
+                    continue;
+                }
+                hasContent = true;
+                text.append(line).append('\n');
+                if (inComment || !line.startsWith("[")) {
+                    if (!inComment) inMoves = true;
+                    inComment = endsInComment(line, inComment);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return hasContent;
+    }
+
+    /**
+     * Tracks brace comments across one movetext line.
+     * @param line The line
+     * @param inComment true if the line starts inside a brace comment
+     * @return true if the line ends inside a brace comment
+     */
+    private static boolean endsInComment(String line, boolean inComment) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inComment) {
+                if (c == '}') inComment = false;
+            } else if (c == '{') {
+                inComment = true;
+            } else if (c == ';') {
+                // Rest-of-line comment; braces in it do not count
+                break;
+            }
+        }
+        return inComment;
+    }
+}
@@ -0,0 +1,180 @@
+package pgn;
+
+import board.Board;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * On-disk index from position key to the games and plies where the position occurred,
+ * built by {@link PositionIndexBuilder}. Lookups binary-search a memory-mapped file,
+ * so a query touches a few pages whatever the size of the index.
+ *
+ * File layout (big-endian): MAGIC (int), entry count (long), then the entries sorted by key and then hit.
+ * Each entry is two longs: the Zobrist key of the position ({@link Board#getKey()}) and a hit,
+ * which packs the game number and the ply (see {@link #hit}).
+ */
+public class PositionIndex implements Closeable {
+    /** "CPI1": identifies a position index and its format version. */
+    public static final int MAGIC = 0x43504931;
+    /** Size of the header in bytes. */
+    public static final int HEADER_SIZE = 4 + 8;
+    /** Size of one entry in bytes. */
+    public static final int ENTRY_SIZE = 16;
+
+    /** Entries mapped per segment: 2^26 entries are 1 GB. */
+    private static final int SEGMENT_SHIFT = 26;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private static final int PLY_BITS = 16;
+
+    private final FileChannel channel;
+    private final LongBuffer[] segments;
+    private final long entryCount;
+
+    /**
+     * Opens and maps an index file.
+     * @param path The file to read
+     * @throws IOException if the file cannot be read or is not a position index
+     */
+    public PositionIndex(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE) throw new IOException("Not a position index: " + path);
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            entryCount = header.getLong(4);
+            if (header.getInt(0) != MAGIC || HEADER_SIZE + entryCount * ENTRY_SIZE != size) {
+                throw new IOException("Not a position index: " + path);
+            }
+            int segmentCount = (int) ((entryCount + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            segments = new LongBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long first = (long) i << SEGMENT_SHIFT;
+                long entries = Math.min(1L << SEGMENT_SHIFT, entryCount - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * ENTRY_SIZE,
+                        entries * ENTRY_SIZE).asLongBuffer();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Packs a game number and ply into a hit.
+     * @param game The game number, from 1
+     * @param ply The number of moves played before the position (0 = start position)
+     * @return The packed hit
+     */
+    public static long hit(long game, int ply) {
+        return (game << PLY_BITS) | (ply & ((1 << PLY_BITS) - 1));
+    }
+
+    /**
+     * Gets the game number of a hit.
+     * @param hit A packed hit
+     * @return The game number
+     */
+    public static long game(long hit) {
+        return hit >>> PLY_BITS;
+    }
+
+    /**
+     * Gets the ply of a hit.
+     * @param hit A packed hit
+     * @return The number of moves played before the position
+     */
+    public static int ply(long hit) {
+        return (int) (hit & ((1 << PLY_BITS) - 1));
+    }
+
+    /**
+     * Gets the number of entries (positions over all games) in the index.
+     * @return The entry count
+     */
+    public long size() {
+        return entryCount;
+    }
+
+    /**
+     * Finds every occurrence of a board's current position.
+     * @param board The position to look up
+     * @return The hits, ordered by game and ply
+     */
+    public long[] lookup(Board board) {
+        return lookup(board.getKey());
+    }
+
+    /**
+     * Finds every occurrence of a position.
+     * @param key The Zobrist key of the position
+     * @return The hits, ordered by game and ply
+     */
+    public long[] lookup(long key) {
+        long first = lowerBound(key);
+        long end = upperBound(key);
+        long[] hits = new long[(int) (end - first)];
+        for (long i = first; i < end; i++) {
+            hits[(int) (i - first)] = value(i);
+        }
+        return hits;
+    }
+
+    /**
+     * Counts the occurrences of a position without collecting them.
+     * @param key The Zobrist key of the position
+     * @return The number of hits
+     */
+    public long count(long key) {
+        return upperBound(key) - lowerBound(key);
+    }
+
+    /**
+     * Closes the file. The mapping is released once it is no longer referenced.
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Finds the first entry whose key is not less than the given key, comparing keys as signed longs.
+     */
+    private long lowerBound(long key) {
+        long lo = 0;
+        long hi = entryCount;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (key(mid) < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Finds the first entry whose key is greater than the given key.
+     */
+    private long upperBound(long key) {
+        long lo = 0;
+        long hi = entryCount;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (key(mid) <= key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private long key(long entry) {
+        return segments[(int) (entry >>> SEGMENT_SHIFT)].get((int) ((entry & SEGMENT_MASK) << 1));
+    }
+
+    private long value(long entry) {
+        return segments[(int) (entry >>> SEGMENT_SHIFT)].get((int) (((entry & SEGMENT_MASK) << 1) + 1));
+    }
+}
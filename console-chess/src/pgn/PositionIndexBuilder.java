@@ -0,0 +1,270 @@
+package pgn;
+
+import board.Board;
+import board.PackedMove;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Builds a {@link PositionIndex} by replaying games and recording the key of every position.
+ * Entries are collected in a fixed-size buffer; each time it fills up it is sorted and written
+ * to a temporary run file next to the output. Closing the builder merges the sorted runs into
+ * the index, so memory use is bounded by the buffer whatever the number of games.
+ */
+public class PositionIndexBuilder implements Closeable {
+    /** Default number of entries sorted in memory per run (64 MB of keys and hits). */
+    public static final int DEFAULT_RUN_ENTRIES = 1 << 22;
+
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    private final Path output;
+    private final long[] keys;
+    private final long[] hits;
+    private final List<Path> runs = new ArrayList<>();
+    private final Board board = new Board();
+    private int buffered;
+    private long entryCount;
+    private boolean closed;
+
+    /**
+     * Creates a builder with the default run size.
+     * @param output The index file to write on close
+     */
+    public PositionIndexBuilder(Path output) {
+        this(output, DEFAULT_RUN_ENTRIES);
+    }
+
+    /**
+     * Creates a builder.
+     * @param output The index file to write on close
+     * @param runEntries Number of entries sorted in memory before a run is written to disk
+     */
+    public PositionIndexBuilder(Path output, int runEntries) {
+        if (runEntries < 1) throw new IllegalArgumentException("Run size must be positive: " + runEntries);
+        this.output = output;
+        this.keys = new long[runEntries];
+        this.hits = new long[runEntries];
+    }
+
+    /**
+     * Adds every position of a parsed PGN game.
+     * A game with an illegal move adds nothing.
+     * @param game The game; its number is the game number stored in the hits
+     * @throws IOException if writing a run fails
+     * @throws IllegalArgumentException if a move is illegal or the FEN tag is malformed
+     */
+    public void add(PGNGame game) throws IOException {
+        // Resolve all the moves before recording any, so an illegal game leaves nothing behind
+        List<String> san = game.getMoves();
+        int[] packed = new int[san.size()];
+        PGNParser.setupPosition(board, game.getTags());
+        for (int ply = 0; ply < packed.length; ply++) {
+            packed[ply] = SANResolver.resolve(board, san.get(ply), board.getSideToMove());
+            if (packed[ply] == PackedMove.NONE) {
+                throw new IllegalArgumentException("Illegal move " + (ply + 1) + ": " + san.get(ply));
+            }
+            board.makeMove(packed[ply]);
+        }
+        add(game.getNumber(), game.getTags(), packed);
+    }
+
+    /**
+     * Adds every position of a game given as packed moves, as read from a {@link GameArchiveReader}.
+     * @param number The game number stored in the hits, from 1
+     * @param tags The game's tags, for the FEN tag
+     * @param moves The packed moves in order
+     * @throws IOException if writing a run fails
+     */
+    public void add(long number, Map<String, String> tags, int[] moves) throws IOException {
+        start(number, tags);
+        for (int ply = 0; ply < moves.length; ply++) {
+            board.makeMove(moves[ply]);
+            record(number, ply + 1);
+        }
+    }
+
+    /**
+     * Gets the number of entries added so far.
+     * @return The entry count
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Gets the number of sorted runs written to disk so far.
+     * @return The run count
+     */
+    public int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * Writes the last run, merges all runs into the index file and deletes them.
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            flushRun();
+            merge();
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /**
+     * Sets up a game's start position and records it as ply 0.
+     */
+    private void start(long number, Map<String, String> tags) throws IOException {
+        if (closed) throw new IllegalStateException("Builder is closed");
+        PGNParser.setupPosition(board, tags);
+        record(number, 0);
+    }
+
+    private void record(long number, int ply) throws IOException {
+        if (buffered == keys.length) flushRun();
+        keys[buffered] = board.getKey();
+        hits[buffered] = PositionIndex.hit(number, ply);
+        buffered++;
+        entryCount++;
+    }
+
+    /**
+     * Sorts the buffered entries and writes them to a new temporary run file.
+     */
+    private void flushRun() throws IOException {
+        if (buffered == 0) return;
+        sort(0, buffered - 1);
+        Path dir = output.toAbsolutePath().getParent();
+        Path run = Files.createTempFile(dir, output.getFileName().toString(), ".run");
+        runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(run), IO_BUFFER_SIZE))) {
+            for (int i = 0; i < buffered; i++) {
+                out.writeLong(keys[i]);
+                out.writeLong(hits[i]);
+            }
+        }
+        buffered = 0;
+    }
+
+    /**
+     * Merges the sorted runs into the index file, smallest key first.
+     */
+    private void merge() throws IOException {
+        PriorityQueue<Run> queue = new PriorityQueue<>();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(output), IO_BUFFER_SIZE))) {
+            out.writeInt(PositionIndex.MAGIC);
+            out.writeLong(entryCount);
+            for (Path path : runs) {
+                Run run = new Run(path);
+                if (run.advance()) queue.add(run);
+            }
+            while (!queue.isEmpty()) {
+                Run run = queue.poll();
+                out.writeLong(run.key);
+                out.writeLong(run.hit);
+                if (run.advance()) queue.add(run);
+            }
+        } finally {
+            for (Run run : queue) {
+                run.in.close();
+            }
+        }
+    }
+
+    /**
+     * Quicksorts the buffer by key, moving each hit with its key; equal keys are ordered by hit.
+     */
+    private void sort(int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            long pivotKey = keys[mid];
+            long pivotHit = hits[mid];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (compare(i, pivotKey, pivotHit) < 0) i++;
+                while (compare(j, pivotKey, pivotHit) > 0) j--;
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller half to bound the stack depth
+            if (j - lo < hi - i) {
+                sort(lo, j);
+                lo = i;
+            } else {
+                sort(i, hi);
+                hi = j;
+            }
+        }
+    }
+
+    private int compare(int i, long key, long hit) {
+        int c = Long.compare(keys[i], key);
+        return c != 0 ? c : Long.compare(hits[i], hit);
+    }
+
+    private void swap(int i, int j) {
+        long k = keys[i];
+        keys[i] = keys[j];
+        keys[j] = k;
+        long h = hits[i];
+        hits[i] = hits[j];
+        hits[j] = h;
+    }
+
+    /**
+     * A sorted run being merged, holding its current entry.
+     */
+    private static final class Run implements Comparable<Run> {
+        final DataInputStream in;
+        long key;
+        long hit;
+
+        Run(Path path) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), IO_BUFFER_SIZE));
+        }
+
+        /**
+         * Reads the next entry, closing the run at its end.
+         * @return false if the run is exhausted
+         */
+        boolean advance() throws IOException {
+            try {
+                key = in.readLong();
+                hit = in.readLong();
+                return true;
+            } catch (EOFException e) {
+                in.close();
+                return false;
+            }
+        }
+
+        @Override
+        public int compareTo(Run other) {
+            int c = Long.compare(key, other.key);
+            return c != 0 ? c : Long.compare(hit, other.hit);
+        }
+    }
+}
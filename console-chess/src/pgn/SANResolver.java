@@ -0,0 +1,258 @@
+package pgn;
+
+import board.Attacks;
+import board.BitboardPosition;
+import board.Board;
+import board.PackedMove;
+import enums.Color;
+import enums.PieceType;
+
+/**
+ * Resolves Standard Algebraic Notation against a position using the board's bitboards.
+ * Candidates are found backwards from the destination square: the pieces of the named type
+ * and color that attack it are one table lookup (plus a ray scan for sliders), so only real
+ * candidates are ever looked at. Legality is tested in place by checking whether the king
+ * would be attacked with the occupancy the move leaves behind; no move is made on the board.
+ * The SAN is read character by character without building any strings.
+ */
+public final class SANResolver {
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private SANResolver() {}
+
+    /**
+     * Resolves a SAN move for a side.
+     * Accepts check and annotation suffixes, "x" or "-" separators, castling with O or 0,
+     * promotions with or without "=", and fully specified origins ("Ng1f3").
+     * A pawn reaching the last rank without a promotion piece promotes to a queen.
+     * Moves are rejected when more than one piece could make them, when a pawn capture does
+     * not name its origin file, or when a promotion piece is given for a move that does not promote.
+     *
+     * @param board The current board state
+     * @param san The SAN move (e.g., "Nf3", "exd5", "O-O", "e8=Q+")
+     * @param color The side making the move
+     * @return The packed move with its flags set, or PackedMove.NONE if no legal move matches
+     */
+    public static int resolve(Board board, CharSequence san, Color color) {
+        if (san == null) return PackedMove.NONE;
+        int end = san.length();
+        while (end > 0 && isSuffix(san.charAt(end - 1))) end--;
+        if (end < 2) return PackedMove.NONE;
+
+        BitboardPosition bb = board.getBitboards();
+        int king = bb.getKingSquare(color);
+        if (king < 0) return PackedMove.NONE;
+        Color them = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+
+        char first = san.charAt(0);
+        if (first == 'O' || first == '0') {
+            return resolveCastling(board, bb, san, end, color, them, king);
+        }
+
+        PieceType type = PieceType.PAWN;
+        int pos = 0;
+        if (first >= 'A' && first <= 'Z') {
+            type = PieceType.fromChar(first);
+            if (type == null) return PackedMove.NONE;
+            pos = 1;
+        }
+
+        // Promotion piece at the end, written "e8=Q" or "e8Q"
+        PieceType promotion = null;
+        char last = san.charAt(end - 1);
+        if (last >= 'A' && last <= 'Z') {
+            promotion = PieceType.fromChar(last);
+            if (promotion == null || promotion == PieceType.KING || promotion == PieceType.PAWN) return PackedMove.NONE;
+            end--;
+            if (end > 0 && san.charAt(end - 1) == '=') end--;
+        }
+
+        // Destination is the last file and rank; anything before it narrows the origin
+        if (end - pos < 2) return PackedMove.NONE;
+        int toFile = san.charAt(end - 2) - 'a';
+        int toRank = san.charAt(end - 1) - '1';
+        if (toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) return PackedMove.NONE;
+        int to = toRank * 8 + toFile;
+        if (promotion != null && (type != PieceType.PAWN || (toRank != 0 && toRank != 7))) return PackedMove.NONE;
+        long originMask = -1L;
+        boolean originFile = false;
+        for (int i = pos; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                originMask &= Attacks.FILE_A << (c - 'a');
+                originFile = true;
+            } else if (c >= '1' && c <= '8') {
+                originMask &= Attacks.RANK_1 << (8 * (c - '1'));
+            } else if (c != 'x' && c != '-' && c != ':') {
+                return PackedMove.NONE;
+            }
+        }
+
+        long ours = bb.getOccupancy(color);
+        long theirs = bb.getOccupancy(them);
+        long occupied = ours | theirs;
+        long toBit = 1L << to;
+        if ((ours & toBit) != 0) return PackedMove.NONE;
+
+        int enPassant = -1;
+        if (type == PieceType.PAWN && to == board.getEnPassantSquare()) enPassant = to;
+        // A pawn capture is written with its origin file ("exd5"), never as "d5"
+        if (type == PieceType.PAWN && !originFile && ((theirs & toBit) != 0 || enPassant >= 0)) return PackedMove.NONE;
+        long origins = attackersTo(board, bb, type, color, to, occupied, theirs) & originMask;
+        int move = PackedMove.NONE;
+        while (origins != 0) {
+            int from = Long.numberOfTrailingZeros(origins);
+            origins &= origins - 1;
+            boolean ep = enPassant >= 0 && (from & 7) != (to & 7);
+            if (!isLegal(bb, type, from, to, ep, color, them, king, occupied)) continue;
+            // Ambiguous: the SAN does not say which of two pieces moves
+            if (move != PackedMove.NONE) return PackedMove.NONE;
+            move = encode(type, from, to, promotion, theirs, ep);
+        }
+        return move;
+    }
+
+    /**
+     * Finds the pieces of one type that can legally move to a square.
+     * Used for SAN disambiguation when writing moves.
+     *
+     * @param board The current board state
+     * @param type The piece type
+     * @param color The side to move
+     * @param to The destination square index
+     * @return Bitboard of the origin squares of legal moves to the destination
+     */
+    public static long legalOrigins(Board board, PieceType type, Color color, int to) {
+        BitboardPosition bb = board.getBitboards();
+        int king = bb.getKingSquare(color);
+        if (king < 0) return 0L;
+        Color them = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        long ours = bb.getOccupancy(color);
+        long theirs = bb.getOccupancy(them);
+        long occupied = ours | theirs;
+        if ((ours & (1L << to)) != 0) return 0L;
+
+        long origins = attackersTo(board, bb, type, color, to, occupied, theirs);
+        boolean enPassant = type == PieceType.PAWN && to == board.getEnPassantSquare();
+        long legal = 0L;
+        while (origins != 0) {
+            int from = Long.numberOfTrailingZeros(origins);
+            origins &= origins - 1;
+            boolean ep = enPassant && (from & 7) != (to & 7);
+            if (isLegal(bb, type, from, to, ep, color, them, king, occupied)) legal |= 1L << from;
+        }
+        return legal;
+    }
+
+    /**
+     * Gets the pieces of a type and color that could move to a square, ignoring pins and checks.
+     * Non-pawn pieces move the way they attack, so this is the attack set of the piece type seen
+     * from the destination. Pawns capture diagonally onto enemy pieces or the en passant square
+     * and otherwise push straight onto an empty square.
+     */
+    private static long attackersTo(Board board, BitboardPosition bb, PieceType type, Color color,
+                                    int to, long occupied, long theirs) {
+        long pieces = bb.getPieces(color, type);
+        switch (type) {
+            case KNIGHT:
+                return Attacks.knight(to) & pieces;
+            case BISHOP:
+                return Attacks.bishop(to, occupied) & pieces;
+            case ROOK:
+                return Attacks.rook(to, occupied) & pieces;
+            case QUEEN:
+                return Attacks.queen(to, occupied) & pieces;
+            case KING:
+                return Attacks.king(to) & pieces;
+            default:
+                break;
+        }
+        long toBit = 1L << to;
+        if ((theirs & toBit) != 0 || to == board.getEnPassantSquare()) {
+            Color them = (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+            return Attacks.pawn(them, to) & pieces;
+        }
+        if ((occupied & toBit) != 0) return 0L;
+        int back = (color == Color.WHITE) ? -8 : 8;
+        int one = to + back;
+        if (one < 0 || one > 63) return 0L;
+        if ((pieces & (1L << one)) != 0) return 1L << one;
+        int two = one + back;
+        int doublePushRank = (color == Color.WHITE) ? 3 : 4;
+        if ((to >>> 3) == doublePushRank && (occupied & (1L << one)) == 0 && (pieces & (1L << two)) != 0) {
+            return 1L << two;
+        }
+        return 0L;
+    }
+
+    /**
+     * Checks that a move does not leave the mover's king attacked, by recomputing the attackers
+     * of the king square with the occupancy after the move. The captured piece no longer attacks.
+     */
+    private static boolean isLegal(BitboardPosition bb, PieceType type, int from, int to, boolean enPassant,
+                                   Color color, Color them, int king, long occupied) {
+        long toBit = 1L << to;
+        long after = (occupied & ~(1L << from)) | toBit;
+        long removed = toBit;
+        if (enPassant) {
+            long capturedBit = 1L << ((from & ~7) | (to & 7));
+            after &= ~capturedBit;
+            removed |= capturedBit;
+        }
+        int kingSquare = (type == PieceType.KING) ? to : king;
+        return (bb.attackersOf(kingSquare, them, after) & ~removed) == 0;
+    }
+
+    /**
+     * Resolves "O-O" or "O-O-O" (also written with zeros): the right must still be held,
+     * the squares between king and rook empty, and the king may not be in, pass through
+     * or land in check.
+     */
+    private static int resolveCastling(Board board, BitboardPosition bb, CharSequence san, int end,
+                                       Color color, Color them, int king) {
+        int dashes = 0;
+        for (int i = 0; i < end; i++) {
+            char c = san.charAt(i);
+            if (c == '-') dashes++;
+            else if (c != 'O' && c != '0') return PackedMove.NONE;
+        }
+        boolean kingside = dashes == 1;
+        if ((dashes != 1 && dashes != 2) || !board.canCastle(color, kingside)) return PackedMove.NONE;
+        long occupied = bb.getOccupancy();
+        long path = kingside
+                ? (1L << (king + 1)) | (1L << (king + 2))
+                : (1L << (king - 1)) | (1L << (king - 2)) | (1L << (king - 3));
+        if ((occupied & path) != 0) return PackedMove.NONE;
+        int step = kingside ? 1 : -1;
+        for (int sq = king; sq != king + 3 * step; sq += step) {
+            if (bb.isSquareAttacked(sq, them)) return PackedMove.NONE;
+        }
+        return PackedMove.encode(king, king + 2 * step, null, PackedMove.FLAG_CASTLE);
+    }
+
+    /**
+     * Packs a resolved move with the flags the board expects.
+     */
+    private static int encode(PieceType type, int from, int to, PieceType promotion, long theirs, boolean enPassant) {
+        int flags = ((theirs & (1L << to)) != 0) ? PackedMove.FLAG_CAPTURE : 0;
+        if (type != PieceType.PAWN) return PackedMove.encode(from, to, null, flags);
+        if (enPassant) flags = PackedMove.FLAG_EN_PASSANT;
+        if (Math.abs(to - from) == 16) flags |= PackedMove.FLAG_DOUBLE_PUSH;
+        int rank = to >>> 3;
+        if (rank == 0 || rank == 7) {
+            if (promotion == null) promotion = PieceType.QUEEN;
+        } else {
+            promotion = null;
+        }
+        return PackedMove.encode(from, to, promotion, flags);
+    }
+
+    /**
+     * Checks for the check, mate and annotation marks that may trail a move.
+     */
+    private static boolean isSuffix(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+}
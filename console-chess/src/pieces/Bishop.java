@@ -33,34 +33,9 @@ public class Bishop extends Piece {
     public List<Move> getLegalMoves(Board board)
     {
         List<Move> moves = new ArrayList<>();
-        Square from = new Square(file, rank);
-        // 4 diagonal directions
-        int[] df = {1,1,-1,-1};
-        int[] dr = {1,-1,1,-1};
-        for(int i=0;i<4;i++)
-        {
-            for(int step=1;step<8;step++)
-            {
-                Square to = new Square(file+df[i]*step,rank+dr[i]*step);
-                if(!board.isInBounds(to))
-                {
-                    break;
-                }
-                if(!board.isPathClear(from, to))
-                {
-                    break;
-                }
-                if(!board.isOwnPiece(to, color))
-                {
-                    moves.add(new Move(from, to));
-                }
-                // Stop if we hit any piece
-                if(board.getPieceAt(to)!=null)
-                {
-                    break;
-                }
-            }
-        }
+        BitboardPosition bb = board.getBitboards();
+        int from = BitboardPosition.squareIndex(file, rank);
+        addMoves(moves, Square.of(from), Attacks.bishop(from, bb.getOccupancy()) & ~bb.getOccupancy(color));
         return moves;
     }
 
@@ -37,35 +37,18 @@ public class King extends Piece
     public List<Move> getLegalMoves(Board board)
     {
         List<Move> moves = new ArrayList<>();
-        Square from = new Square(file, rank);
-        // Check all 8 surrounding squares
-        for(int df=-1;df<=1;df++)
-        {
-            for(int dr=-1;dr<=1;dr++)
-            {
-                if(df==0 && dr==0)
-                {
-                    continue;
-                }
-                Square to = new Square(file+df,rank+dr);
-                if(!board.isInBounds(to))
-                {
-                    continue;
-                }
-                if(!board.isOwnPiece(to, color))
-                {
-                    moves.add(new Move(from, to));
-                }
-            }
-        }
+        Square from = Square.of(file, rank);
+        // The 8 surrounding squares, from the precomputed king attack table
+        long own = board.getBitboards().getOccupancy(color);
+        addMoves(moves, from, Attacks.king(from.getIndex()) & ~own);
         // Castling logic
         if(!hasMoved && !board.isSquareAttacked(from, opposite()))
         {
             int homeRank = (color==Color.WHITE)?0:7;
             // Kingside castling (O-O)
-            Square f = new Square(5, homeRank);
-            Square g = new Square(6, homeRank);
-            Square h = new Square(7, homeRank);
+            Square f = Square.of(5, homeRank);
+            Square g = Square.of(6, homeRank);
+            Square h = Square.of(7, homeRank);
             Piece rookH = board.getPieceAt(h);
             if(board.getPieceAt(f) == null &&
                     board.getPieceAt(g) == null &&
@@ -74,13 +57,13 @@ public class King extends Piece
                     !board.isSquareAttacked(f, opposite()) &&
                     !board.isSquareAttacked(g, opposite()))
             {
-                moves.add(new Move(from, g));
+                moves.add(Move.of(from, g));
             }
             // Queenside castling (O-O-O)
-            Square d = new Square(3, homeRank);
-            Square c = new Square(2, homeRank);
-            Square b = new Square(1, homeRank);
-            Square a = new Square(0, homeRank);
+            Square d = Square.of(3, homeRank);
+            Square c = Square.of(2, homeRank);
+            Square b = Square.of(1, homeRank);
+            Square a = Square.of(0, homeRank);
             Piece rookA = board.getPieceAt(a);
             if(board.getPieceAt(d) == null &&
                     board.getPieceAt(c) == null &&
@@ -90,7 +73,7 @@ public class King extends Piece
                     !board.isSquareAttacked(d, opposite()) &&
                     !board.isSquareAttacked(c, opposite()))
             {
-                moves.add(new Move(from, c));
+                moves.add(Move.of(from, c));
             }
         }
         return moves;
@@ -105,6 +88,15 @@ public class King extends Piece
         return(color == Color.WHITE)?Color.BLACK:Color.WHITE;
     }
 
+    /**
+     * Checks if this king has moved (affects castling rights).
+     * @return true if the king has moved from its starting position
+     */
+    public boolean hasMoved()
+    {
+        return hasMoved;
+    }
+
     /**
      * Sets whether this king has moved (affects castling rights).
      * @param value true if the king has moved
@@ -33,21 +33,9 @@ public class Knight extends Piece{
     public List<Move> getLegalMoves(Board board)
     {
         List<Move> moves = new ArrayList<>();
-        Square from = new Square(file, rank);
-        // 8 L-shaped move offsets
-        int[] df = {1,2,2,1, -1,-2,-2,-1};
-        int[] dr = {2,1,-1,-2,-2,-1,1, 2};
-        for (int i = 0; i < 8; i++) {
-            Square to = new Square(file+df[i],rank+dr[i]);
-            if(!board.isInBounds(to))
-            {
-                continue;
-            }
-            if(!board.isOwnPiece(to, color))
-            {
-                moves.add(new Move(from, to));
-            }
-        }
+        BitboardPosition bb = board.getBitboards();
+        int from = BitboardPosition.squareIndex(file, rank);
+        addMoves(moves, Square.of(from), Attacks.knight(from) & ~bb.getOccupancy(color));
         return moves;
     }
 
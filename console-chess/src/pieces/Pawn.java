@@ -41,34 +41,32 @@ public class Pawn extends Piece{
         // Direction depends on color: WHITE moves up (+1), BLACK moves down (-1)
         int dir = (color==Color.WHITE)?1:-1;
         int startRank = (color==Color.WHITE)?1:6;
-        Square from = new Square(file, rank);
+        Square from = Square.of(file, rank);
 
         // Single forward move
-        Square oneForward = new Square(file, rank + dir);
-        if(board.isInBounds(oneForward) && board.getPieceAt(oneForward) == null)
+        if(Square.isValid(file, rank + dir) && board.getPieceAt(Square.of(file, rank + dir)) == null)
         {
-            moves.add(new Move(from, oneForward));
+            moves.add(Move.of(from, Square.of(file, rank + dir)));
             // Double forward move from starting position
-            Square twoForward = new Square(file, rank+2*dir);
-            if(rank == startRank && board.getPieceAt(twoForward) == null)
+            if(rank == startRank && board.getPieceAt(Square.of(file, rank+2*dir)) == null)
             {
-                moves.add(new Move(from, twoForward));
+                moves.add(Move.of(from, Square.of(file, rank+2*dir)));
             }
         }
 
         // Diagonal captures (including en passant)
-        for(int df:new int[]{-1, 1})
+        for(int df = -1; df <= 1; df += 2)
         {
-            Square diag = new Square(file + df, rank + dir);
-            if(!board.isInBounds(diag))
+            if(!Square.isValid(file + df, rank + dir))
             {
                 continue;
             }
+            Square diag = Square.of(file + df, rank + dir);
             Piece target = board.getPieceAt(diag);
             // Normal diagonal capture
             if(target!=null && target.getColor()!=color)
             {
-                moves.add(new Move(from, diag));
+                moves.add(Move.of(from, diag));
             }
             // En passant capture
             if (target == null && board.getLastMove() != null) {
@@ -81,12 +79,11 @@ public class Pawn extends Piece{
                     if (lastMoved != null && lastMoved.getType() == PieceType.PAWN) {
                         if (Math.abs(lmTo.getRank() - lmFrom.getRank()) == 2) {
                             int passedRank = (lmFrom.getRank() + lmTo.getRank()) / 2;
-                            Square passedOver = new Square(lmTo.getFile(), passedRank);
                             // If diagonal move lands on the passed-over square
-                            if (passedOver.getFile() == diag.getFile() && passedOver.getRank() == diag.getRank()) {
+                            if (Square.of(lmTo.getFile(), passedRank) == diag) {
                                 // And the enemy pawn is adjacent
                                 if (lmTo.getRank() == from.getRank() && Math.abs(lmTo.getFile() - from.getFile()) == 1) {
-                                    moves.add(new Move(from, diag));
+                                    moves.add(Move.of(from, diag));
                                 }
                             }
                         }
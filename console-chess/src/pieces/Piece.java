@@ -2,6 +2,7 @@ package pieces;
 
 import board.Board;
 import board.Move;
+import board.Square;
 import enums.Color;
 import enums.PieceType;
 
@@ -85,5 +86,17 @@ public abstract class Piece {
      * @return A new Piece instance with the same properties
      */
     public abstract Piece copy();
+
+    /**
+     * Adds a move from one square to each square of a bitboard.
+     * @param moves The list to add to
+     * @param from The starting square
+     * @param targets Bitboard of destination squares
+     */
+    protected static void addMoves(java.util.List<Move> moves, Square from, long targets) {
+        for (; targets != 0; targets &= targets - 1) {
+            moves.add(Move.of(from, Square.of(Long.numberOfTrailingZeros(targets))));
+        }
+    }
 }
 